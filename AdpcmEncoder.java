@@ -0,0 +1,160 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Offline tool that re-encodes an audio file as IMA ADPCM WAV, about a quarter of the
+ * size of 16-bit PCM, for {@link ImaAdpcm} to decode at run time.
+ *
+ * Usage: {@code java AdpcmEncoder input output}
+ *
+ * Sample rate and channel count are kept (mono or stereo). The output can replace the
+ * original under the same name, since the game detects the format from the header.
+ */
+public class AdpcmEncoder {
+
+    private static final int BLOCK_BYTES_PER_CHANNEL = 512;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java AdpcmEncoder input output");
+            return;
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+
+        short[] samples;
+        AudioFormat format;
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(input)) {
+            AudioFormat original = source.getFormat();
+            format = new AudioFormat(original.getSampleRate(), 16, original.getChannels(), true, false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(format, source)) {
+                byte[] bytes = pcm.readAllBytes();
+                samples = new short[bytes.length / 2];
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+                }
+            }
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            System.err.println("[Audio] Can't read " + input + ": " + e.getMessage());
+            return;
+        }
+
+        int channels = format.getChannels();
+        if (channels < 1 || channels > 2) {
+            System.err.println("[Audio] Only mono and stereo are supported: " + input);
+            return;
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+            write(out, samples, channels, (int) format.getSampleRate());
+        }
+        System.out.printf("[Audio] %s: %d KB -> %d KB%n",
+            output.getName(), input.length() >> 10, output.length() >> 10);
+    }
+
+    private static void write(OutputStream out, short[] samples, int channels, int sampleRate) throws IOException {
+        int blockAlign = BLOCK_BYTES_PER_CHANNEL * channels;
+        int samplesPerBlock = (blockAlign - 4 * channels) * 2 / channels + 1;
+        int frames = samples.length / channels;
+        int blocks = (frames + samplesPerBlock - 1) / samplesPerBlock;
+        int dataSize = blocks * blockAlign;
+
+        byte[] header = new byte[60];
+        putTag(header, 0, "RIFF");
+        putInt(header, 4, header.length - 8 + dataSize);
+        putTag(header, 8, "WAVE");
+        putTag(header, 12, "fmt ");
+        putInt(header, 16, 20);
+        putShort(header, 20, ImaAdpcm.FORMAT_TAG);
+        putShort(header, 22, channels);
+        putInt(header, 24, sampleRate);
+        putInt(header, 28, (int) ((long) sampleRate * blockAlign / samplesPerBlock));
+        putShort(header, 32, blockAlign);
+        putShort(header, 34, 4);
+        putShort(header, 36, 2);
+        putShort(header, 38, samplesPerBlock);
+        putTag(header, 40, "fact");
+        putInt(header, 44, 4);
+        putInt(header, 48, frames);
+        putTag(header, 52, "data");
+        putInt(header, 56, dataSize);
+        out.write(header);
+
+        // Predictor state carries over between blocks; each block restarts from an exact sample
+        int[] index = new int[channels];
+        byte[] block = new byte[blockAlign];
+        for (int start = 0; start < frames; start += samplesPerBlock) {
+            Arrays.fill(block, (byte) 0);
+            for (int c = 0; c < channels; c++) {
+                int predictor = sample(samples, frames, start, c, channels);
+                putShort(block, 4 * c, predictor);
+                block[4 * c + 2] = (byte) index[c];
+
+                for (int frame = 1; frame < samplesPerBlock; frame++) {
+                    int group = (frame - 1) / 8;
+                    int k = (frame - 1) % 8;
+                    int diff = sample(samples, frames, start + frame, c, channels) - predictor;
+                    int nibble = 0;
+                    if (diff < 0) {
+                        nibble = 8;
+                        diff = -diff;
+                    }
+                    int step = ImaAdpcm.STEP_TABLE[index[c]];
+                    int delta = step >> 3;
+                    if (diff >= step) {
+                        nibble |= 4;
+                        diff -= step;
+                        delta += step;
+                    }
+                    if (diff >= step >> 1) {
+                        nibble |= 2;
+                        diff -= step >> 1;
+                        delta += step >> 1;
+                    }
+                    if (diff >= step >> 2) {
+                        nibble |= 1;
+                        delta += step >> 2;
+                    }
+                    // Track the decoder's reconstruction, not the source, so errors don't accumulate
+                    predictor += (nibble & 8) != 0 ? -delta : delta;
+                    predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+                    index[c] = Math.max(0, Math.min(88, index[c] + ImaAdpcm.INDEX_TABLE[nibble & 7]));
+
+                    int offset = 4 * channels + group * 4 * channels + c * 4 + k / 2;
+                    block[offset] |= (byte) ((k & 1) == 0 ? nibble : nibble << 4);
+                }
+            }
+            out.write(block);
+        }
+    }
+
+    /**
+     * A source sample, repeating the last frame past the end to pad the final block.
+     */
+    private static int sample(short[] samples, int frames, int frame, int channel, int channels) {
+        return samples[Math.min(frame, frames - 1) * channels + channel];
+    }
+
+    private static void putTag(byte[] b, int offset, String tag) {
+        for (int i = 0; i < 4; i++) {
+            b[offset + i] = (byte) tag.charAt(i);
+        }
+    }
+
+    private static void putShort(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        putShort(b, offset, value);
+        putShort(b, offset + 2, value >> 16);
+    }
+}
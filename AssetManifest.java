@@ -0,0 +1,309 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Offline tool that writes a content-hashed manifest of every asset the scripts reference.
+ *
+ * Usage: {@code java AssetManifest [gameDirectory]}
+ *
+ * Starting from every {@code Chapter*.json} and the chapters they chain to with
+ * NEXT_CHAPTER, it collects BG images and their rule masks, CHAR sprites (atlas, layered
+ * or loose files, resolved the way {@link CharacterSprites} does), BGM, SE and voice clips.
+ * Sprites of DIALOGUE speakers are optional, since narrators have none. Referenced files
+ * and their mip levels are SHA-256 hashed in parallel and written to {@code manifest.json}.
+ *
+ * Files with identical content are reported ({@link AssetPackBuilder} stores them once), and missing
+ * references are listed with the chapter using them; the exit status is 1 when any are
+ * missing, so a release build can stop on it. The game reads the manifest back through
+ * {@link Assets#cacheKey}, so identical files share one cache entry.
+ */
+public class AssetManifest {
+
+    static final String FILE_NAME = "manifest.json";
+    private static final String CHAPTER_PREFIX = "Chapter";
+    private static final String CHAPTER_SUFFIX = ".json";
+    private static final String[] SPRITE_EXTENSIONS = {".png", ".jpg"};
+    private static final long HASH_CHUNK = 64L << 20;   // Mapped per step, so huge files don't need huge mappings
+    private static final Gson GSON = new Gson();
+
+    /**
+     * JSON layout of manifest.json.
+     */
+    static class Manifest {
+        Map<String, Entry> assets = new TreeMap<>();
+        Map<String, String> missing = new TreeMap<>();   // Reference -> chapter that uses it
+    }
+
+    static class Entry {
+        String sha256;
+        long size;
+    }
+
+    private final File root;
+    private final Set<String> referenced = new LinkedHashSet<>();
+    private final Map<String, String> missing = new TreeMap<>();
+
+    private AssetManifest(File root) {
+        this.root = root;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File root = new File(args.length > 0 ? args[0] : ".");
+        AssetManifest scanner = new AssetManifest(root);
+        scanner.scanChapters();
+
+        long start = System.nanoTime();
+        Manifest manifest = scanner.hash();
+        long bytes = manifest.assets.values().stream().mapToLong(e -> e.size).sum();
+        System.out.printf("[Manifest] %d files, %d MB hashed in %d ms%n",
+            manifest.assets.size(), bytes >> 20, (System.nanoTime() - start) / 1_000_000);
+
+        reportDuplicates(manifest);
+        for (Map.Entry<String, String> entry : manifest.missing.entrySet()) {
+            System.err.println("[Manifest] Missing " + entry.getKey() + " (referenced by " + entry.getValue() + ")");
+        }
+
+        try (Writer writer = new FileWriter(new File(root, FILE_NAME), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(manifest, writer);
+        }
+        if (!manifest.missing.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Walks all chapter files, following NEXT_CHAPTER to chapters with other names.
+     */
+    private void scanChapters() {
+        Deque<String> queue = new ArrayDeque<>();
+        Set<String> seen = new LinkedHashSet<>();
+        File[] chapters = root.listFiles((dir, name) -> name.startsWith(CHAPTER_PREFIX) && name.endsWith(CHAPTER_SUFFIX));
+        if (chapters != null) {
+            for (File chapter : chapters) {
+                queue.add(chapter.getName());
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            String chapter = queue.poll();
+            if (!seen.add(chapter)) continue;
+            ScriptData[] lines = readChapter(chapter);
+            if (lines == null) continue;
+            referenced.add(chapter);
+
+            for (ScriptData line : lines) {
+                if (line == null || line.type == null) continue;
+                switch (line.type.toUpperCase()) {
+                    case ScriptData.TYPE_BG:
+                        require(line.param, chapter);
+                        String transition = line.text != null ? line.text.trim() : "";
+                        if (transition.regionMatches(true, 0, "mask:", 0, 5)) {
+                            require(transition.substring(5).split(",")[0].trim(), chapter);
+                        }
+                        break;
+                    case ScriptData.TYPE_CHAR:
+                        addCharacter(line.name, line.mood, chapter, true);
+                        break;
+                    case ScriptData.TYPE_DIALOGUE:
+                        addCharacter(line.name, line.mood, chapter, false);
+                        require(line.voice, chapter);
+                        break;
+                    case ScriptData.TYPE_BGM:
+                        // Same parse as the bgm command: text is "stop[,ms]" or a crossfade time
+                        String bgmAction = line.text != null ? line.text.split(",")[0].trim() : "";
+                        if (!"stop".equalsIgnoreCase(bgmAction)) require(line.param, chapter);
+                        break;
+                    case ScriptData.TYPE_SE:
+                    case ScriptData.TYPE_VOICE:
+                        require(line.param, chapter);
+                        break;
+                    case ScriptData.TYPE_NEXT_CHAPTER:
+                        if (line.param == null) break;
+                        if (exists(line.param)) {
+                            queue.add(Assets.normalize(line.param));
+                        } else {
+                            missing.putIfAbsent(Assets.normalize(line.param), chapter);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        System.out.println("[Manifest] Scanned " + seen.size() + " chapters, " + referenced.size() + " files referenced");
+    }
+
+    private ScriptData[] readChapter(String chapter) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(root, chapter)), StandardCharsets.UTF_8))) {
+            return GSON.fromJson(reader, ScriptData[].class);
+        } catch (IOException | JsonParseException e) {
+            System.err.println("[Manifest] Error reading " + chapter + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean exists(String name) {
+        return new File(root, Assets.normalize(name)).isFile();
+    }
+
+    private void require(String name, String chapter) {
+        if (name == null || name.trim().isEmpty()) return;
+        String normalized = Assets.normalize(name.trim());
+        if (exists(normalized)) {
+            referenced.add(normalized);
+        } else {
+            missing.putIfAbsent(normalized, chapter);
+        }
+    }
+
+    /**
+     * Same lookup order as {@link CharacterSprites}: atlas, layered, then loose files.
+     */
+    private void addCharacter(String name, String mood, String chapter, boolean required) {
+        if (name == null || name.isEmpty() || "null".equals(name) || "none".equals(name)) return;
+        boolean hasMood = mood != null && !mood.isEmpty() && !"none".equals(mood);
+
+        String atlas = name + "_atlas.json";
+        if (exists(atlas)) {
+            referenced.add(atlas);
+            JsonObject index = readJson(atlas);
+            if (index != null && index.has("image")) require(index.get("image").getAsString(), atlas);
+            return;
+        }
+
+        String layers = name + "_layers.json";
+        if (exists(layers)) {
+            referenced.add(layers);
+            JsonObject index = readJson(layers);
+            if (index == null) return;
+            if (index.has("base")) require(index.get("base").getAsString(), layers);
+            if (index.has("expressions")) {
+                for (Map.Entry<String, JsonElement> expression : index.getAsJsonObject("expressions").entrySet()) {
+                    JsonObject patch = expression.getValue().getAsJsonObject();
+                    if (patch.has("image")) require(patch.get("image").getAsString(), layers);
+                }
+            }
+            return;
+        }
+
+        if (hasMood && addFirstSprite(name + "_" + mood)) return;
+        if (addFirstSprite(name)) return;
+        if (required) {
+            missing.putIfAbsent((hasMood ? name + "_" + mood : name) + SPRITE_EXTENSIONS[0], chapter);
+        }
+    }
+
+    private boolean addFirstSprite(String baseName) {
+        for (String extension : SPRITE_EXTENSIONS) {
+            if (exists(baseName + extension)) {
+                referenced.add(baseName + extension);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JsonObject readJson(String name) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(root, name)), StandardCharsets.UTF_8))) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            System.err.println("[Manifest] Error reading " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hashes the referenced files and their mip levels in parallel.
+     */
+    private Manifest hash() {
+        List<String> names = new ArrayList<>(referenced);
+        for (String name : referenced) {
+            for (int level = 1; exists(Mipmaps.levelName(name, level)); level++) {
+                names.add(Mipmaps.levelName(name, level));
+            }
+        }
+
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        Map<String, String> unreadable = new ConcurrentHashMap<>();   // Workers must not touch the TreeMap
+        names.parallelStream().forEach(name -> {
+            File file = new File(root, name);
+            try {
+                Entry entry = new Entry();
+                entry.sha256 = sha256(file);
+                entry.size = file.length();
+                entries.put(name, entry);
+            } catch (IOException e) {
+                System.err.println("[Manifest] Error hashing " + name + ": " + e.getMessage());
+                unreadable.put(name, "(unreadable)");
+            }
+        });
+
+        Manifest manifest = new Manifest();
+        manifest.assets.putAll(entries);
+        manifest.missing.putAll(missing);
+        unreadable.forEach(manifest.missing::putIfAbsent);
+        return manifest;
+    }
+
+    static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // Every JRE ships SHA-256
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_CHUNK) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_CHUNK, size - position)));
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    private static void reportDuplicates(Manifest manifest) {
+        Map<String, List<String>> byHash = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : manifest.assets.entrySet()) {
+            byHash.computeIfAbsent(entry.getValue().sha256, h -> new ArrayList<>()).add(entry.getKey());
+        }
+        long wasted = 0;
+        for (List<String> group : byHash.values()) {
+            if (group.size() < 2) continue;
+            long size = manifest.assets.get(group.get(0)).size;
+            wasted += size * (group.size() - 1);
+            System.out.println("[Manifest] Identical content: " + String.join(", ", group));
+        }
+        if (wasted > 0) {
+            System.out.println("[Manifest] " + (wasted >> 10) + " KB in duplicate files, stored once when packed");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only view of a packed asset archive, memory-mapped in one piece.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   "YZPK"  int version  int entryCount
+ *   entryCount x { short nameLength, UTF-8 name, long offset, int length }
+ *   entry data, each aligned to {@link #ALIGNMENT} bytes
+ * </pre>
+ * Names use '/' separators and are sorted by {@link String#compareTo}, so lookups are a
+ * binary search. Entries are returned as read-only slices of the mapping; nothing is
+ * copied until a decoder reads from them. Packs are limited to 2 GiB each; larger games
+ * are split across several packs.
+ */
+public class AssetPack {
+
+    static final int MAGIC = 0x595A504B;   // "YZPK"
+    static final int VERSION = 1;
+    static final int ALIGNMENT = 16;
+
+    private final File file;
+    private final MappedByteBuffer mapping;
+    private final String[] names;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private AssetPack(File file, MappedByteBuffer mapping, String[] names, long[] offsets, int[] lengths) {
+        this.file = file;
+        this.mapping = mapping;
+        this.names = names;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    public static AssetPack open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Pack larger than 2 GiB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapping.order(ByteOrder.BIG_ENDIAN);
+
+            if (size < 12 || mapping.getInt(0) != MAGIC) {
+                throw new IOException("Not an asset pack: " + file);
+            }
+            int version = mapping.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported pack version " + version + ": " + file);
+            }
+
+            int count = mapping.getInt(8);
+            String[] names = new String[count];
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            ByteBuffer index = mapping.duplicate();
+            index.position(12);
+            if (count < 0 || count > (size - 12) / 14) {
+                throw new IOException("Corrupt pack index: " + file);
+            }
+            for (int i = 0; i < count; i++) {
+                if (index.remaining() < 14) {
+                    throw new IOException("Truncated pack index: " + file);
+                }
+                byte[] name = new byte[index.getShort() & 0xFFFF];
+                if (index.remaining() < name.length + 12) {
+                    throw new IOException("Truncated pack index: " + file);
+                }
+                index.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                if (offsets[i] < 0 || offsets[i] + lengths[i] > size) {
+                    throw new IOException("Corrupt entry " + names[i] + " in " + file);
+                }
+                if (i > 0 && names[i - 1].compareTo(names[i]) >= 0) {
+                    throw new IOException("Pack index not sorted at " + names[i] + ": " + file);
+                }
+            }
+            System.out.println("[Pack] Mapped " + file + " (" + count + " entries, " + (size >> 10) + " KB)");
+            return new AssetPack(file, mapping, names, offsets, lengths);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Entry names in index order.
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    public int indexOf(String name) {
+        return Arrays.binarySearch(names, name);
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Zero-copy, read-only slice of an entry, or null if the pack doesn't have it.
+     */
+    public ByteBuffer get(String name) {
+        int index = indexOf(name);
+        return index >= 0 ? slice(index) : null;
+    }
+
+    public ByteBuffer slice(int index) {
+        ByteBuffer view = mapping.asReadOnlyBuffer();
+        view.position((int) offsets[index]);
+        view.limit((int) offsets[index] + lengths[index]);
+        return view.slice();
+    }
+}
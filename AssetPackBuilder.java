@@ -0,0 +1,176 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Offline tool that packs a game directory into one {@link AssetPack} file.
+ *
+ * Usage: {@code java AssetPackBuilder [gameDirectory] [output.pak]}
+ *
+ * Only files the game reads are packed, each under its relative '/'-separated name:
+ * images, audio, chapter scripts, sprite atlas and layer indexes, and the manifest.
+ * Everything else (sources, saves, tools, notes) is left out, so a developer's working
+ * directory can be packed as is. Names that only differ in case, or that carry a doubled
+ * extension such as {@code image.jpg.png} (a hidden extension on Windows), are reported
+ * because they break on other machines. Files with identical content are stored once,
+ * with every name's index entry pointing at the same data.
+ */
+public class AssetPackBuilder {
+
+    private static final String[] ASSET_EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".bmp", ".wav", ".au", ".aiff", ".aif"};
+    private static final String[] DATA_SUFFIXES = {"_atlas.json", "_layers.json"};
+    private static final String[] MEDIA_EXTENSIONS = {".png", ".jpg", ".jpeg", ".wav", ".au", ".aiff", ".json", ".txt"};
+
+    public static void main(String[] args) throws IOException {
+        File root = new File(args.length > 0 ? args[0] : ".");
+        File output = new File(args.length > 1 ? args[1] : "game.pak");
+
+        List<String> names = new ArrayList<>();
+        int skipped = collect(root, "", names);
+        names.sort(null);
+        if (skipped > 0) System.out.println("[Pack] Left out " + skipped + " files the game doesn't read");
+        warnAboutNames(names);
+
+        long start = System.nanoTime();
+        long bytes = write(root, names, output);
+        System.out.printf("[Pack] %d files, %d KB written to %s in %d ms%n",
+            names.size(), bytes >> 10, output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the assets under a directory and returns how many other files were left out.
+     */
+    private static int collect(File directory, String prefix, List<String> names) {
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+        int skipped = 0;
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.getName().startsWith(".")) continue;
+            if (file.isDirectory()) {
+                skipped += collect(file, name + "/", names);
+            } else if (isAsset(file.getName())) {
+                names.add(name);
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private static boolean isAsset(String filename) {
+        String lower = filename.toLowerCase(Locale.ROOT);
+        for (String extension : ASSET_EXTENSIONS) {
+            if (lower.endsWith(extension)) return true;
+        }
+        for (String suffix : DATA_SUFFIXES) {
+            if (lower.endsWith(suffix)) return true;
+        }
+        return filename.equals(AssetManifest.FILE_NAME)
+            || filename.startsWith("Chapter") && lower.endsWith(".json");
+    }
+
+    private static void warnAboutNames(List<String> names) {
+        Map<String, String> byLowerCase = new HashMap<>();
+        for (String name : names) {
+            String previous = byLowerCase.put(name.toLowerCase(Locale.ROOT), name);
+            if (previous != null) {
+                System.err.println("[Pack] Names differ only in case: " + previous + " / " + name);
+            }
+            String lower = name.toLowerCase(Locale.ROOT);
+            for (String extension : MEDIA_EXTENSIONS) {
+                int at = lower.indexOf(extension + ".");
+                if (at > 0) {
+                    System.err.println("[Pack] Doubled extension (hidden by the OS?): " + name);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes header, index and aligned data. Offsets are computed up front from the
+     * index size, so the file is written in a single pass; a file whose content was
+     * already placed gets that copy's offset.
+     */
+    private static long write(File root, List<String> names, File output) throws IOException {
+        int count = names.size();
+        byte[][] encoded = new byte[count][];
+        long[] lengths = new long[count];
+        long indexSize = 12;
+        for (int i = 0; i < count; i++) {
+            encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            if (encoded[i].length > 0xFFFF) throw new IOException("Name too long: " + names.get(i));
+            lengths[i] = new File(root, names.get(i)).length();
+            indexSize += 2 + encoded[i].length + 8 + 4;
+        }
+
+        long[] offsets = new long[count];
+        boolean[] duplicate = new boolean[count];
+        Map<String, Long> placed = new HashMap<>();
+        long position = align(indexSize);
+        long saved = 0;
+        for (int i = 0; i < count; i++) {
+            Long first = placed.putIfAbsent(lengths[i] + ":" + AssetManifest.sha256(new File(root, names.get(i))), position);
+            if (first != null) {
+                offsets[i] = first;
+                duplicate[i] = true;
+                saved += lengths[i];
+                continue;
+            }
+            offsets[i] = position;
+            position = align(position + lengths[i]);
+        }
+        if (saved > 0) {
+            System.out.println("[Pack] Identical files stored once, saving " + (saved >> 10) + " KB");
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Pack would exceed 2 GiB; split the assets into several packs");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(output), 1 << 16))) {
+            out.writeInt(AssetPack.MAGIC);
+            out.writeInt(AssetPack.VERSION);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeShort(encoded[i].length);
+                out.write(encoded[i]);
+                out.writeLong(offsets[i]);
+                out.writeInt((int) lengths[i]);
+            }
+
+            long written = indexSize;
+            for (int i = 0; i < count; i++) {
+                if (duplicate[i]) continue;
+                written = pad(out, written, offsets[i]);
+                byte[] data = Files.readAllBytes(new File(root, names.get(i)).toPath());
+                if (data.length != lengths[i]) throw new IOException("File changed while packing: " + names.get(i));
+                out.write(data);
+                written += data.length;
+            }
+            pad(out, written, position);
+        }
+        return position;
+    }
+
+    private static long align(long position) {
+        return (position + AssetPack.ALIGNMENT - 1) / AssetPack.ALIGNMENT * AssetPack.ALIGNMENT;
+    }
+
+    private static long pad(DataOutputStream out, long from, long to) throws IOException {
+        for (long p = from; p < to; p++) {
+            out.write(0);
+        }
+        return to;
+    }
+}
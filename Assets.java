@@ -0,0 +1,299 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Single entry point for reading game assets by name.
+ *
+ * Assets come from mount points stacked in priority order, lowest first:
+ * <ol>
+ *   <li>base pack ({@code game.pak})</li>
+ *   <li>DLC packs ({@code dlc/*.pak}, alphabetical)</li>
+ *   <li>translation pack ({@code lang/<language>.pak}, language from the
+ *       {@code yz.lang} property or the system locale)</li>
+ *   <li>loose development folder (the working directory)</li>
+ * </ol>
+ * A later mount overrides names from earlier ones. All mounts are indexed once into a
+ * single name-to-entry table, so lookups are one hash probe and never touch the file
+ * system; {@link #refresh()} re-indexes after files were added while running.
+ * When a pack carries an {@link AssetManifest}, {@link #cacheKey} keys the assets that
+ * still resolve to that pack by content.
+ * Names use '/' separators. Singleton pattern for global access.
+ */
+public class Assets {
+
+    private static final String BASE_PACK = "game.pak";
+    private static final String DLC_DIRECTORY = "dlc";
+    private static final String LANGUAGE_DIRECTORY = "lang";
+    private static final String PACK_SUFFIX = ".pak";
+    private static final Gson GSON = new Gson();
+
+    private static Assets instance;
+
+    /**
+     * Where a name resolves to: an entry of a mapped pack, or a loose file.
+     */
+    private static final class Entry {
+        final AssetPack pack;
+        final int index;
+        final File file;
+
+        Entry(AssetPack pack, int index, File file) {
+            this.pack = pack;
+            this.index = index;
+            this.file = file;
+        }
+    }
+
+    private final List<AssetPack> packs = new ArrayList<>();       // In priority order
+    private final List<File> directories = new ArrayList<>();
+    private volatile Map<String, Entry> table = new HashMap<>();
+    private volatile Map<String, String> contentKeys = new HashMap<>();
+
+    private Assets() {}
+
+    public static synchronized Assets getInstance() {
+        if (instance == null) {
+            instance = new Assets();
+        }
+        return instance;
+    }
+
+    /**
+     * Mounts the standard layout relative to the working directory and builds the table.
+     */
+    public synchronized void mountGameLayout() {
+        addPack(new File(BASE_PACK));
+
+        File[] dlc = new File(DLC_DIRECTORY).listFiles((dir, name) -> name.endsWith(PACK_SUFFIX));
+        if (dlc != null) {
+            Arrays.sort(dlc);
+            for (File pack : dlc) {
+                addPack(pack);
+            }
+        }
+
+        String language = System.getProperty("yz.lang", Locale.getDefault().getLanguage());
+        addPack(new File(LANGUAGE_DIRECTORY, language + PACK_SUFFIX));
+
+        directories.add(new File("."));
+        refresh();
+    }
+
+    /**
+     * Mounts a pack above everything mounted so far.
+     */
+    public synchronized boolean mountPack(File packFile) {
+        if (!addPack(packFile)) return false;
+        refresh();
+        return true;
+    }
+
+    /**
+     * Mounts a loose folder above everything mounted so far.
+     */
+    public synchronized void mountDirectory(File directory) {
+        directories.add(directory);
+        refresh();
+    }
+
+    private boolean addPack(File packFile) {
+        if (!packFile.isFile()) return false;
+        try {
+            packs.add(AssetPack.open(packFile));
+            return true;
+        } catch (IOException e) {
+            System.err.println("[Assets] Failed to mount " + packFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the name table from all mounts: packs in mount order, then loose folders.
+     */
+    public synchronized void refresh() {
+        long start = System.nanoTime();
+        Map<String, Entry> next = new HashMap<>();
+        for (AssetPack pack : packs) {
+            for (int i = 0; i < pack.size(); i++) {
+                next.put(pack.name(i), new Entry(pack, i, null));
+            }
+        }
+        for (File directory : directories) {
+            scan(directory, "", next);
+        }
+        contentKeys = loadContentKeys(packs, next);
+        table = next;
+        System.out.println("[Assets] Indexed " + next.size() + " names from " + packs.size() + " packs and "
+                           + directories.size() + " folders in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // Skips hidden entries and the pack folders, which are mounted as packs
+    private static void scan(File directory, String prefix, Map<String, Entry> into) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(".")) continue;
+            if (file.isDirectory()) {
+                if (prefix.isEmpty() && (name.equals(DLC_DIRECTORY) || name.equals(LANGUAGE_DIRECTORY))) continue;
+                scan(file, prefix + name + "/", into);
+            } else {
+                into.put(prefix + name, new Entry(null, -1, file));
+            }
+        }
+    }
+
+    static String normalize(String name) {
+        String normalized = name.replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        return normalized;
+    }
+
+    /**
+     * Reads the {@link AssetManifest#FILE_NAME} of each pack and keys that pack's assets by
+     * their hash. A hash only applies while the name still resolves to the pack it came
+     * from: an override from a later pack has different content even at the same size.
+     * Loose files are left out, since they may have been edited after the manifest was built.
+     */
+    private static Map<String, String> loadContentKeys(List<AssetPack> packs, Map<String, Entry> entries) {
+        Map<String, String> keys = new HashMap<>();
+        for (AssetPack pack : packs) {
+            int manifestIndex = pack.indexOf(AssetManifest.FILE_NAME);
+            if (manifestIndex < 0) continue;
+
+            AssetManifest.Manifest manifest;
+            try (Reader reader = new InputStreamReader(
+                    new ByteBufferInputStream(pack.slice(manifestIndex)), StandardCharsets.UTF_8)) {
+                manifest = GSON.fromJson(reader, AssetManifest.Manifest.class);
+            } catch (IOException | JsonParseException e) {
+                System.err.println("[Assets] Ignoring unreadable manifest in " + pack.getFile() + ": " + e.getMessage());
+                continue;
+            }
+            if (manifest == null || manifest.assets == null) continue;
+
+            for (Map.Entry<String, AssetManifest.Entry> asset : manifest.assets.entrySet()) {
+                Entry entry = entries.get(asset.getKey());
+                if (entry != null && entry.pack == pack && asset.getValue().sha256 != null
+                        && pack.slice(entry.index).remaining() == asset.getValue().size) {
+                    keys.put(asset.getKey(), "sha256:" + asset.getValue().sha256);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Stable cache key for an asset: its content hash when the manifest covers it, so
+     * identical files share cache entries; otherwise the normalized name.
+     */
+    public String cacheKey(String name) {
+        if (name == null) return null;
+        String normalized = normalize(name);
+        String key = contentKeys.get(normalized);
+        return key != null ? key : normalized;
+    }
+
+    private Entry lookup(String name) {
+        return name == null ? null : table.get(normalize(name));
+    }
+
+    public boolean exists(String name) {
+        return lookup(name) != null;
+    }
+
+    /**
+     * Returns the asset's bytes, as a zero-copy slice when it comes from a pack,
+     * or null when it doesn't exist.
+     */
+    public ByteBuffer read(String name) throws IOException {
+        Entry entry = lookup(name);
+        if (entry == null) return null;
+        if (entry.pack != null) return entry.pack.slice(entry.index);
+        return ByteBuffer.wrap(Files.readAllBytes(entry.file.toPath()));
+    }
+
+    /**
+     * Opens the asset as a stream that supports mark/reset (needed by the audio and
+     * image decoders), or returns null when it doesn't exist.
+     */
+    public InputStream openStream(String name) throws IOException {
+        Entry entry = lookup(name);
+        return entry != null ? open(entry) : null;
+    }
+
+    private static InputStream open(Entry entry) throws IOException {
+        if (entry.pack != null) return new ByteBufferInputStream(entry.pack.slice(entry.index));
+        return new BufferedInputStream(new FileInputStream(entry.file));
+    }
+
+    /**
+     * InputStream over a ByteBuffer; reads straight from the mapped pack.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private int mark;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.position(mark);
+        }
+    }
+}
@@ -1,27 +1,49 @@
-import java.io.File;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import javax.sound.sampled.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Audio manager for BGM and sound effects.
+ * Everything is summed by one {@link AudioMixer} into a single output line: BGM is
+ * streamed by a {@link BgmStream}, sound effects play on a {@link SoundEffectPool} and
+ * per-line voices on a {@link VoicePlayer}.
+ * Volumes are channel gains of the mixer. Decoded PCM of both is kept off-heap in one
+ * byte-budgeted {@link PcmCache}.
+ *
+ * Playback commands are queued on a lock-free queue and run on a dedicated audio
+ * thread, so callers on the EDT never wait for decoding. A sound effect is stamped with
+ * its mixer start frame when it is requested, so effects queued together start on the
+ * same sample however long each one takes to load.
+ * Start latency, decode times and underruns are tracked by {@link AudioMetrics}.
  * Singleton pattern for global access.
  */
-public class AudioManager {
+public class AudioManager implements Runnable {
     
     private static AudioManager instance;
     
-    private Clip bgmClip;
-    private float bgmVolume = 0.8f;
-    private float seVolume = 1.0f;
-    private boolean bgmMuted = false;
-    private boolean seMuted = false;
-    
-    // Cache for sound effects
-    private final Map<String, Clip> seCache = new HashMap<>();
-    
-    private AudioManager() {}
+    private BgmStream bgmStream;   // Audio thread only
+    private volatile float bgmVolume = 0.8f;
+    private volatile float seVolume = 1.0f;
+    private volatile boolean bgmMuted = false;
+    private volatile boolean seMuted = false;
+    
+    private static final long PCM_CACHE_BUDGET = 128L << 20;
+    
+    private final AudioMixer mixer = new AudioMixer();
+    private final PcmCache pcmCache = new PcmCache(PCM_CACHE_BUDGET);
+    private final SoundEffectPool sePool = new SoundEffectPool(mixer, pcmCache);
+    private final VoicePlayer voicePlayer = new VoicePlayer(mixer);
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Thread audioThread;
+    
+    private AudioManager() {
+        mixer.setGain(AudioMixer.CHANNEL_BGM, bgmVolume);
+        mixer.setGain(AudioMixer.CHANNEL_SE, seVolume);
+        audioThread = new Thread(this, "audio-commands");
+        audioThread.setDaemon(true);
+        audioThread.start();
+    }
     
     public static AudioManager getInstance() {
         if (instance == null) {
@@ -30,124 +52,175 @@ public class AudioManager {
         return instance;
     }
     
-    public void playBGM(String filename) {
-        stopBGM();
-        try {
-            File audioFile = new File(filename);
-            if (!audioFile.exists()) {
-                System.err.println("[Audio] BGM file not found: " + filename);
-                return;
-            }
-            
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            bgmClip = AudioSystem.getClip();
-            bgmClip.open(audioStream);
-            
-            setBgmVolume(bgmVolume);
-            bgmClip.loop(Clip.LOOP_CONTINUOUSLY);
-            
-            if (!bgmMuted) {
-                bgmClip.start();
+    private void submit(Runnable command) {
+        commands.add(command);
+        LockSupport.unpark(audioThread);
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[Audio] Command failed: " + e);
+                }
             }
-            System.out.println("[Audio] Playing BGM: " + filename);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("[Audio] Error playing BGM: " + e.getMessage());
+            LockSupport.park(this);
         }
     }
     
+    public void playBGM(String filename) {
+        playBGM(filename, 0);
+    }
+    
+    /**
+     * Switches to a looping track, crossfading over fadeMs (0 = cut). The new track is
+     * opened, from the decoded-PCM cache when it was played before, before the current
+     * one starts fading, so there is no silent gap. Asking for the track that is already
+     * playing keeps it going.
+     */
+    public void playBGM(String filename, int fadeMs) {
+        submit(() -> {
+            if (bgmStream != null && bgmStream.getFilename().equals(filename)) return;
+            boolean fadeIn = fadeMs > 0 && bgmStream != null;
+            long start = System.nanoTime();
+            BgmStream next = BgmStream.open(filename, pcmCache, this::submit, bgmMuted, fadeIn ? 0f : 1f);
+            if (next == null) return;   // Keep the current track rather than going silent
+            mixer.getMetrics().recordStreamOpen(filename, start);
+            fadeOutStream(fadeMs);
+            if (fadeIn) next.fade(1f, fadeMs, false);
+            if (mixer.add(AudioMixer.CHANNEL_BGM, next)) {
+                bgmStream = next;
+            } else {
+                next.discarded();   // No output line
+            }
+        });
+    }
+    
     public void stopBGM() {
-        if (bgmClip != null) {
-            bgmClip.stop();
-            bgmClip.close();
-            bgmClip = null;
+        stopBGM(0);
+    }
+    
+    public void stopBGM(int fadeMs) {
+        submit(() -> fadeOutStream(fadeMs));
+    }
+    
+    // The stream leaves the mixer by itself once faded out
+    private void fadeOutStream(int fadeMs) {
+        if (bgmStream == null) return;
+        if (fadeMs > 0 && !bgmMuted) {
+            bgmStream.fade(0f, fadeMs, true);
+        } else {
+            bgmStream.stop();
         }
+        bgmStream = null;
     }
     
     public void pauseBGM() {
-        if (bgmClip != null && bgmClip.isRunning()) {
-            bgmClip.stop();
-        }
+        submit(() -> {
+            if (bgmStream != null) bgmStream.pause();
+        });
     }
     
     public void resumeBGM() {
-        if (bgmClip != null && !bgmMuted) {
-            bgmClip.start();
-        }
+        submit(() -> {
+            if (bgmStream != null && !bgmMuted) bgmStream.resume();
+        });
     }
     
     public void playSE(String filename) {
+        playSE(filename, SoundEffectPool.DEFAULT_PRIORITY);
+    }
+    
+    /**
+     * Plays a sound effect on the voice pool; when every voice is busy, a voice with a
+     * lower (or equal, older) priority is stolen.
+     */
+    public void playSE(String filename, int priority) {
         if (seMuted) return;
-        
-        try {
-            Clip seClip = seCache.get(filename);
-            
-            if (seClip == null) {
-                File audioFile = new File(filename);
-                if (!audioFile.exists()) {
-                    System.err.println("[Audio] SE file not found: " + filename);
-                    return;
-                }
-                
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-                seClip = AudioSystem.getClip();
-                seClip.open(audioStream);
-                seCache.put(filename, seClip);
+        long requested = System.nanoTime();
+        long startFrame = mixer.scheduleFrame();
+        submit(() -> {
+            if (sePool.play(filename, priority, startFrame, requested)) {
+                System.out.println("[Audio] Playing SE: " + filename);
             }
-            
-            seClip.setFramePosition(0);
-            setClipVolume(seClip, seVolume);
-            seClip.start();
-            System.out.println("[Audio] Playing SE: " + filename);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("[Audio] Error playing SE: " + e.getMessage());
-        }
+        });
+    }
+    
+    /**
+     * Plays a line's voice clip, cutting the previous one.
+     */
+    public void playVoice(String filename) {
+        long requested = System.nanoTime();
+        submit(() -> voicePlayer.play(filename, requested));
+    }
+    
+    public void stopVoice() {
+        submit(voicePlayer::stop);
+    }
+    
+    /**
+     * Decodes the voices of the upcoming lines ahead of time and drops any other
+     * preloaded ones.
+     */
+    public void preloadVoices(List<String> filenames) {
+        List<String> upcoming = new ArrayList<>(filenames);
+        submit(() -> voicePlayer.retain(upcoming));
+    }
+    
+    /**
+     * The listener is called on an audio thread when a voice clip has played to its end.
+     */
+    public void setVoiceListener(VoicePlayer.CompletionListener listener) {
+        voicePlayer.setCompletionListener(listener);
     }
     
     public void setBgmVolume(float volume) {
         this.bgmVolume = Math.max(0f, Math.min(1f, volume));
-        if (bgmClip != null) {
-            setClipVolume(bgmClip, bgmMuted ? 0f : bgmVolume);
-        }
+        mixer.setGain(AudioMixer.CHANNEL_BGM, bgmVolume);
     }
     
     public void setSeVolume(float volume) {
         this.seVolume = Math.max(0f, Math.min(1f, volume));
+        mixer.setGain(AudioMixer.CHANNEL_SE, seVolume);
     }
     
     public void setBgmMuted(boolean muted) {
         this.bgmMuted = muted;
-        if (bgmClip != null) {
+        submit(() -> {
+            if (bgmStream == null) return;
             if (muted) {
-                bgmClip.stop();
+                bgmStream.pause();
             } else {
-                setBgmVolume(bgmVolume);
-                bgmClip.start();
+                bgmStream.resume();
             }
-        }
+        });
     }
     
     public void setSeMuted(boolean muted) {
         this.seMuted = muted;
     }
     
-    private void setClipVolume(Clip clip, float volume) {
-        if (clip == null) return;
-        try {
-            FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-            float dB = (float) (Math.log(Math.max(0.0001, volume)) / Math.log(10.0) * 20.0);
-            dB = Math.max(gainControl.getMinimum(), Math.min(gainControl.getMaximum(), dB));
-            gainControl.setValue(dB);
-        } catch (IllegalArgumentException e) {
-            // Volume control not supported
-        }
+    /**
+     * Current audio timings: start latency, decode and line-open times, underruns and
+     * active voices. The same values are emitted as JFR events while a recording runs.
+     */
+    public AudioMetrics.Snapshot getMetrics() {
+        return mixer.getMetrics().snapshot();
     }
     
     public void cleanup() {
-        stopBGM();
-        for (Clip clip : seCache.values()) {
-            clip.close();
-        }
-        seCache.clear();
+        System.out.println("[Audio] " + getMetrics());
+        submit(() -> {
+            fadeOutStream(0);
+            sePool.close();
+            voicePlayer.release();
+            pcmCache.clear();
+            mixer.close();
+        });
     }
     
     public float getBgmVolume() { return bgmVolume; }
@@ -0,0 +1,310 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+/**
+ * Timing counters for the audio pipeline, readable as a {@link Snapshot} and also
+ * emitted as JFR events (category "YZCiallo / Audio") for profiling a running game.
+ *
+ * Recorded:
+ * - latency from a play request to the mix of its first sample, for SE and voice; the output
+ *   line's own buffer of a few mixer buffers comes on top
+ * - decode time of whole SE and voice clips
+ * - time to open a BGM stream, from the cache or the file
+ * - time to open the output line
+ * - underruns: buffers written after the line had already played everything out
+ * - active mixer sources and sound-effect voices, sampled every buffer
+ *
+ * Every counter is lock-free, so recording from the mixer thread never blocks it.
+ */
+public class AudioMetrics {
+
+    /**
+     * Count, total and maximum of one kind of duration.
+     */
+    private static final class Timing {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        double averageMs() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / 1e6 / n : 0;
+        }
+
+        double maxMs() {
+            return maxNanos.get() / 1e6;
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    private final Timing seLatency = new Timing();
+    private final Timing voiceLatency = new Timing();
+    private final Timing decode = new Timing();
+    private final Timing streamOpen = new Timing();
+    private final Timing lineOpen = new Timing();
+    private final LongAdder underruns = new LongAdder();
+    private final LongAdder buffers = new LongAdder();
+    private volatile int activeSources;
+    private volatile int activeSeVoices;
+    private final LongAccumulator peakSeVoices = new LongAccumulator(Math::max, 0);
+    private final Runnable voicesHook = this::emitVoices;
+
+    public AudioMetrics() {
+        FlightRecorder.addPeriodicEvent(VoicesEvent.class, voicesHook);
+    }
+
+    /**
+     * Stops the periodic JFR event, which would otherwise keep this instance alive.
+     */
+    void close() {
+        FlightRecorder.removePeriodicEvent(voicesHook);
+    }
+
+    private void emitVoices() {
+        VoicesEvent event = new VoicesEvent();
+        event.activeSources = activeSources;
+        event.activeSeVoices = activeSeVoices;
+        event.underruns = underruns.sum();
+        event.commit();
+    }
+
+    /**
+     * A play request made at requestNanos had its first sample mixed just now; channel
+     * is {@link AudioMixer#CHANNEL_SE} or {@link AudioMixer#CHANNEL_VOICE}.
+     */
+    void recordFirstSample(int channel, String filename, long requestNanos) {
+        long nanos = System.nanoTime() - requestNanos;
+        boolean se = channel == AudioMixer.CHANNEL_SE;
+        (se ? seLatency : voiceLatency).add(nanos);
+        LatencyEvent event = new LatencyEvent();
+        if (event.isEnabled()) {
+            event.channel = se ? "SE" : "Voice";
+            event.filename = filename;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * A whole clip was decoded, starting at startNanos.
+     */
+    void recordDecode(String filename, long startNanos, long bytes) {
+        long nanos = System.nanoTime() - startNanos;
+        decode.add(nanos);
+        DecodeEvent event = new DecodeEvent();
+        if (event.isEnabled()) {
+            event.filename = filename;
+            event.decodeTime = nanos;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * A BGM stream was opened, starting at startNanos.
+     */
+    void recordStreamOpen(String filename, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        streamOpen.add(nanos);
+        StreamOpenEvent event = new StreamOpenEvent();
+        if (event.isEnabled()) {
+            event.filename = filename;
+            event.openTime = nanos;
+            event.commit();
+        }
+    }
+
+    void recordLineOpen(long startNanos, boolean opened) {
+        long nanos = System.nanoTime() - startNanos;
+        lineOpen.add(nanos);
+        LineOpenEvent event = new LineOpenEvent();
+        if (event.isEnabled()) {
+            event.openTime = nanos;
+            event.opened = opened;
+            event.commit();
+        }
+    }
+
+    void recordUnderrun(long bufferFrame) {
+        underruns.increment();
+        UnderrunEvent event = new UnderrunEvent();
+        if (event.isEnabled()) {
+            event.bufferFrame = bufferFrame;
+            event.commit();
+        }
+    }
+
+    void recordBuffer(int sources) {
+        buffers.increment();
+        activeSources = sources;
+    }
+
+    void recordSeVoices(int voices) {
+        activeSeVoices = voices;
+        peakSeVoices.accumulate(voices);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        seLatency.reset();
+        voiceLatency.reset();
+        decode.reset();
+        streamOpen.reset();
+        underruns.reset();
+        buffers.reset();
+        peakSeVoices.reset();
+    }
+
+    /**
+     * Values at one point in time; durations in milliseconds.
+     */
+    public static final class Snapshot {
+        public final long seStarts;
+        public final double seLatencyAverageMs;
+        public final double seLatencyMaxMs;
+        public final long voiceStarts;
+        public final double voiceLatencyAverageMs;
+        public final double voiceLatencyMaxMs;
+        public final long decodes;
+        public final double decodeAverageMs;
+        public final double decodeMaxMs;
+        public final long streamOpens;
+        public final double streamOpenAverageMs;
+        public final double streamOpenMaxMs;
+        public final double lineOpenMs;
+        public final long underruns;
+        public final long buffers;
+        public final int activeSources;
+        public final int activeSeVoices;
+        public final int peakSeVoices;
+
+        private Snapshot(AudioMetrics m) {
+            Timing se = m.seLatency;
+            Timing voice = m.voiceLatency;
+            seStarts = se.count.sum();
+            seLatencyAverageMs = se.averageMs();
+            seLatencyMaxMs = se.maxMs();
+            voiceStarts = voice.count.sum();
+            voiceLatencyAverageMs = voice.averageMs();
+            voiceLatencyMaxMs = voice.maxMs();
+            decodes = m.decode.count.sum();
+            decodeAverageMs = m.decode.averageMs();
+            decodeMaxMs = m.decode.maxMs();
+            streamOpens = m.streamOpen.count.sum();
+            streamOpenAverageMs = m.streamOpen.averageMs();
+            streamOpenMaxMs = m.streamOpen.maxMs();
+            lineOpenMs = m.lineOpen.maxMs();
+            underruns = m.underruns.sum();
+            buffers = m.buffers.sum();
+            activeSources = m.activeSources;
+            activeSeVoices = m.activeSeVoices;
+            peakSeVoices = (int) m.peakSeVoices.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SE %d starts, latency avg %.1f / max %.1f ms; voice %d starts, avg %.1f / max %.1f ms; "
+                    + "%d decodes, avg %.1f / max %.1f ms; %d BGM opens, avg %.1f / max %.1f ms; "
+                    + "line open %.1f ms; %d underruns in %d buffers; "
+                    + "%d sources, %d SE voices (peak %d)",
+                seStarts, seLatencyAverageMs, seLatencyMaxMs, voiceStarts, voiceLatencyAverageMs, voiceLatencyMaxMs,
+                decodes, decodeAverageMs, decodeMaxMs, streamOpens, streamOpenAverageMs, streamOpenMaxMs, lineOpenMs, underruns, buffers,
+                activeSources, activeSeVoices, peakSeVoices);
+        }
+    }
+
+    @Name("yzciallo.AudioLatency")
+    @Label("Audio Start Latency")
+    @Description("Time from a play request to the mix of its first sample")
+    @Category({"YZCiallo", "Audio"})
+    public static final class LatencyEvent extends Event {
+        @Label("Channel")
+        String channel;
+        @Label("File")
+        String filename;
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name("yzciallo.AudioDecode")
+    @Label("Audio Decode")
+    @Description("Decoding a whole SE or voice clip")
+    @Category({"YZCiallo", "Audio"})
+    public static final class DecodeEvent extends Event {
+        @Label("File")
+        String filename;
+        @Label("Decode Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long decodeTime;
+        @Label("Decoded Bytes")
+        long bytes;
+    }
+
+    @Name("yzciallo.AudioStreamOpen")
+    @Label("BGM Stream Open")
+    @Description("Opening a BGM track, from the decoded-PCM cache or the file")
+    @Category({"YZCiallo", "Audio"})
+    public static final class StreamOpenEvent extends Event {
+        @Label("File")
+        String filename;
+        @Label("Open Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long openTime;
+    }
+
+    @Name("yzciallo.AudioLineOpen")
+    @Label("Audio Line Open")
+    @Category({"YZCiallo", "Audio"})
+    public static final class LineOpenEvent extends Event {
+        @Label("Open Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long openTime;
+        @Label("Opened")
+        boolean opened;
+    }
+
+    @Name("yzciallo.AudioUnderrun")
+    @Label("Audio Underrun")
+    @Description("A mixer buffer reached the line after it had run dry")
+    @Category({"YZCiallo", "Audio"})
+    public static final class UnderrunEvent extends Event {
+        @Label("Buffer Frame")
+        long bufferFrame;
+    }
+
+    @Name("yzciallo.AudioVoices")
+    @Label("Audio Voices")
+    @Category({"YZCiallo", "Audio"})
+    @Period("1 s")
+    public static final class VoicesEvent extends Event {
+        @Label("Active Sources")
+        int activeSources;
+        @Label("Active SE Voices")
+        int activeSeVoices;
+        @Label("Underruns")
+        long underruns;
+    }
+}
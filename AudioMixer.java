@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.sound.sampled.*;
+
+/**
+ * Pure-Java mixer that sums every audio source into one SourceDataLine.
+ *
+ * Sources belong to a channel (BGM, SE or voice) and are mixed at the channel's gain,
+ * so volume changes are a single store instead of a line control lookup. All audio is
+ * converted to {@link #FORMAT} when it is opened; the mix loop works on preallocated
+ * buffers and allocates nothing per buffer. The thread idles while no source is active.
+ *
+ * Frames are counted from the first buffer on. {@link #scheduleFrame()} maps "now" to a
+ * frame of the mix, so cached sounds requested together start on the same sample even
+ * when the command thread hands them over in different buffers.
+ */
+public class AudioMixer implements Runnable {
+
+    static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    static final int FRAME_BYTES = 4;
+    static final int FRAMES_PER_BUFFER = 512;   // About 12 ms
+    private static final int LINE_BUFFERS = 4;
+
+    static final int CHANNEL_BGM = 0;
+    static final int CHANNEL_SE = 1;
+    static final int CHANNEL_VOICE = 2;
+    private static final int CHANNELS = 3;
+
+    /**
+     * Something that adds its samples to the mix.
+     */
+    interface Source {
+        /**
+         * Adds {@code frames} interleaved stereo frames, scaled by gain, to mix.
+         * Returns false once the source is finished; it is then dropped.
+         */
+        boolean mixInto(int[] mix, int frames, float gain);
+
+        /**
+         * Called instead of mixing when an accepted source is dropped because no output
+         * line could be opened, so it can release what it holds and report itself done.
+         */
+        default void discarded() {}
+    }
+
+    private final AudioMetrics metrics = new AudioMetrics();
+    private final AtomicIntegerArray gains = new AtomicIntegerArray(CHANNELS);   // Float bits
+    private final List<List<Source>> active = new ArrayList<>();
+    private final List<Source> pending = new ArrayList<>();
+    private final List<Integer> pendingChannels = new ArrayList<>();
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean failed;
+    private volatile boolean idle = true;
+    private volatile long bufferFrame;    // First frame of the buffer being mixed
+    private volatile long bufferNanos;    // When mixing of that buffer started
+    private boolean resumed;              // Mixer thread only: the last takePending() waited
+
+    public AudioMixer() {
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            gains.set(channel, Float.floatToIntBits(1f));
+            active.add(new ArrayList<>());
+        }
+    }
+
+    public void setGain(int channel, float gain) {
+        gains.set(channel, Float.floatToIntBits(Math.max(0f, gain)));
+    }
+
+    public float getGain(int channel) {
+        return Float.intBitsToFloat(gains.get(channel));
+    }
+
+    AudioMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * First frame of the buffer currently being mixed; sources use it to place scheduled starts.
+     */
+    long getBufferFrame() {
+        return bufferFrame;
+    }
+
+    /**
+     * Frame at which a sound requested now should start. While the mixer idles the clock
+     * stands still, so requests made during the pause all map to the same frame.
+     */
+    long scheduleFrame() {
+        long frame = bufferFrame;
+        if (!idle) {
+            long elapsed = (System.nanoTime() - bufferNanos) * (long) FORMAT.getFrameRate() / 1_000_000_000L;
+            frame += Math.max(0, Math.min(elapsed, FRAMES_PER_BUFFER * LINE_BUFFERS));
+        }
+        return frame;
+    }
+
+    /**
+     * Adds a source to a channel; it is mixed from the next buffer on. Returns false
+     * when audio is disabled because there is no output line; the source is then
+     * never called.
+     */
+    public synchronized boolean add(int channel, Source source) {
+        if (failed) return false;
+        pending.add(source);
+        pendingChannels.add(channel);
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, "audio-mixer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+        }
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        SourceDataLine line;
+        long openStart = System.nanoTime();
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, FRAMES_PER_BUFFER * FRAME_BYTES * LINE_BUFFERS);
+            line.start();
+            metrics.recordLineOpen(openStart, true);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            metrics.recordLineOpen(openStart, false);
+            System.err.println("[Audio] No output line, audio disabled: " + e.getMessage());
+            List<Source> dropped;
+            synchronized (this) {
+                failed = true;
+                dropped = new ArrayList<>(pending);
+                pending.clear();
+                pendingChannels.clear();
+            }
+            for (Source source : dropped) {
+                source.discarded();
+            }
+            return;
+        }
+
+        int[] mix = new int[FRAMES_PER_BUFFER * 2];
+        byte[] out = new byte[FRAMES_PER_BUFFER * FRAME_BYTES];
+        try {
+            while (running) {
+                if (!takePending()) break;
+                bufferNanos = System.nanoTime();
+
+                Arrays.fill(mix, 0);
+                int sourceCount = 0;
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    List<Source> sources = active.get(channel);
+                    float gain = getGain(channel);
+                    for (int i = sources.size() - 1; i >= 0; i--) {
+                        if (!sources.get(i).mixInto(mix, FRAMES_PER_BUFFER, gain)) {
+                            // Swap-remove: order doesn't matter and nothing shifts
+                            sources.set(i, sources.get(sources.size() - 1));
+                            sources.remove(sources.size() - 1);
+                        }
+                    }
+                    sourceCount += sources.size();
+                }
+                metrics.recordBuffer(sourceCount);
+
+                for (int i = 0, b = 0; i < mix.length; i++, b += 2) {
+                    int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                    out[b] = (byte) sample;
+                    out[b + 1] = (byte) (sample >> 8);
+                }
+                // A drained line means this buffer comes late, unless it just ran out while idle
+                if (!resumed && line.available() >= line.getBufferSize()) {
+                    metrics.recordUnderrun(bufferFrame);
+                }
+                line.write(out, 0, out.length);
+                bufferFrame += FRAMES_PER_BUFFER;
+            }
+        } finally {
+            line.drain();
+            line.close();
+        }
+    }
+
+    /**
+     * Moves newly added sources in, waiting while there is nothing to play.
+     * Returns false when the mixer was closed.
+     */
+    private synchronized boolean takePending() {
+        resumed = bufferFrame == 0;
+        while (running && pending.isEmpty() && isIdle()) {
+            idle = true;
+            resumed = true;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        idle = false;
+        for (int i = 0; i < pending.size(); i++) {
+            active.get(pendingChannels.get(i)).add(pending.get(i));
+        }
+        pending.clear();
+        pendingChannels.clear();
+        return running;
+    }
+
+    private boolean isIdle() {
+        for (List<Source> sources : active) {
+            if (!sources.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = thread;
+            thread = null;
+            notifyAll();
+        }
+        if (current != null) current.interrupt();
+        metrics.close();
+    }
+
+    /**
+     * Opens an asset decoded and converted to {@link #FORMAT}, or returns null when it
+     * doesn't exist. IMA ADPCM WAV files are decoded by {@link ImaAdpcm}, everything else
+     * by javax.sound.sampled.
+     */
+    static AudioInputStream openConverted(String filename) throws IOException, UnsupportedAudioFileException {
+        InputStream file = Assets.getInstance().openStream(filename);
+        if (file == null) return null;
+        try {
+            AudioInputStream stream = ImaAdpcm.open(file);
+            if (stream == null) stream = AudioSystem.getAudioInputStream(file);
+            AudioFormat format = stream.getFormat();
+            if (!format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED)
+                    && !format.getEncoding().equals(AudioFormat.Encoding.PCM_UNSIGNED)) {
+                // Compressed encodings go through 16-bit PCM first
+                AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                    format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+                stream = AudioSystem.getAudioInputStream(pcm, stream);
+            }
+            if (stream.getFormat().matches(FORMAT)) return stream;
+            try {
+                return AudioSystem.getAudioInputStream(FORMAT, stream);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedAudioFileException("Can't convert " + format + " to " + FORMAT);
+            }
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            file.close();   // Nothing returned owns it
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Streams a looping BGM track into the {@link AudioMixer}.
+ *
+ * On first play the track is decoded one mixer buffer at a time, so only a few
+ * kilobytes of PCM are on the heap whatever the track length. When the decoded size is
+ * known and fits the {@link PcmCache}, the decoded buffers are also copied off-heap;
+ * after the first pass the track loops from that copy and later plays start from it
+ * without touching the file. When the track is left before its first pass ends, the
+ * rest is decoded in small steps on the background executor and cached then, so
+ * returning to a scene starts its music from memory. Tracks that aren't cached have
+ * their next pass opened ahead of time on the background executor, so the loop has no
+ * gap either way and the mixer thread never opens files or allocates.
+ *
+ * Each stream has its own level on top of the BGM channel gain, ramped per frame by
+ * {@link #fade}, so one track can fade out while the next fades in.
+ */
+public class BgmStream implements AudioMixer.Source {
+
+    private final String filename;
+    private final PcmCache cache;
+    private final Executor background;
+    private final byte[] chunk = new byte[AudioMixer.FRAMES_PER_BUFFER * AudioMixer.FRAME_BYTES];
+    private AudioInputStream stream;   // Decoding from the file
+    private long passBytes;            // Decoded from the current stream so far
+    private ByteBuffer capture;        // Off-heap copy of what was decoded so far
+    private ByteBuffer pcm;            // Playing from the cache
+    private final AtomicReference<AudioInputStream> nextStream = new AtomicReference<>();   // Next pass, opened ahead
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile boolean paused;
+
+    /**
+     * A level ramp requested from another thread, picked up at the next buffer.
+     */
+    private static final class Fade {
+        final float target;
+        final int frames;
+        final boolean stopAtEnd;
+
+        Fade(float target, int frames, boolean stopAtEnd) {
+            this.target = target;
+            this.frames = frames;
+            this.stopAtEnd = stopAtEnd;
+        }
+    }
+
+    private final AtomicReference<Fade> pendingFade = new AtomicReference<>();
+    private float level;            // Mixer thread only
+    private float levelTarget;
+    private float levelStep;
+    private boolean stopAtTarget;
+
+    private static final int CAPTURE_STEP_BYTES = 256 << 10;   // Per background step, so queued commands aren't held up
+
+    private BgmStream(String filename, PcmCache cache, Executor background, boolean paused, float level) {
+        this.filename = filename;
+        this.cache = cache;
+        this.background = background;
+        this.paused = paused;
+        this.level = level;
+        this.levelTarget = level;
+    }
+
+    /**
+     * Opens a track from the cache or the file at the given starting level; call off the
+     * EDT and the mixer thread. background finishes caching tracks left early; it should
+     * be a single thread that other work can interleave with. Returns null when the
+     * track can't be opened.
+     */
+    public static BgmStream open(String filename, PcmCache cache, Executor background, boolean paused, float level) {
+        BgmStream bgm = new BgmStream(filename, cache, background, paused, level);
+        bgm.pcm = cache.get(filename);
+        if (bgm.pcm != null) {
+            System.out.println("[Audio] Playing BGM from cache: " + filename);
+            return bgm;
+        }
+        try {
+            bgm.stream = AudioMixer.openConverted(filename);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            System.err.println("[Audio] Error opening BGM " + filename + ": " + e.getMessage());
+            return null;
+        }
+        if (bgm.stream == null) {
+            System.err.println("[Audio] BGM file not found: " + filename);
+            return null;
+        }
+
+        long frames = bgm.stream.getFrameLength();
+        long size = frames * AudioMixer.FRAME_BYTES;
+        if (frames != AudioSystem.NOT_SPECIFIED && size > 0 && cache.fits(size)) {
+            bgm.capture = PcmCache.allocate((int) size);   // Here rather than in the mix, which can't wait for it
+        } else {
+            bgm.prepareNextStream();
+        }
+        System.out.println("[Audio] Streaming BGM: " + filename);
+        return bgm;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Ends the stream; the mixer drops it at the next buffer.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    /**
+     * Ramps this stream's level linearly to target over durationMs; with stopAtEnd the
+     * stream ends once the ramp is done.
+     */
+    public void fade(float target, int durationMs, boolean stopAtEnd) {
+        int frames = (int) (AudioMixer.FORMAT.getFrameRate() * Math.max(0, durationMs) / 1000);
+        pendingFade.set(new Fade(target, frames, stopAtEnd));
+    }
+
+    @Override
+    public void discarded() {
+        close();
+    }
+
+    @Override
+    public boolean mixInto(int[] mix, int frames, float gain) {
+        if (stopped) {
+            close();
+            return false;
+        }
+        Fade fade = pendingFade.getAndSet(null);
+        if (fade != null) {
+            levelTarget = fade.target;
+            levelStep = fade.frames > 0 ? (fade.target - level) / fade.frames : fade.target - level;
+            stopAtTarget = fade.stopAtEnd;
+        }
+        if (stopAtTarget && level == levelTarget) {
+            close();
+            return false;
+        }
+        if (paused) return true;
+
+        int wanted = frames * AudioMixer.FRAME_BYTES;
+        try {
+            if (!fill(wanted)) {
+                abort();   // Empty track
+                return false;
+            }
+        } catch (IOException e) {
+            System.err.println("[Audio] Error streaming BGM " + filename + ": " + e.getMessage());
+            abort();
+            return false;
+        }
+
+        for (int i = 0, b = 0; b < wanted; i += 2, b += 4) {
+            float frameGain = gain * level;
+            mix[i] += (int) ((short) ((chunk[b] & 0xFF) | (chunk[b + 1] << 8)) * frameGain);
+            mix[i + 1] += (int) ((short) ((chunk[b + 2] & 0xFF) | (chunk[b + 3] << 8)) * frameGain);
+            if (level != levelTarget) {
+                level += levelStep;
+                if (levelStep >= 0 ? level >= levelTarget : level <= levelTarget) level = levelTarget;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills the chunk from the cached PCM or the stream, looping at the end. Returns
+     * false when the track turns out to be empty.
+     */
+    private boolean fill(int wanted) throws IOException {
+        int filled = 0;
+        while (filled < wanted) {
+            if (pcm != null) {
+                if (!pcm.hasRemaining()) {
+                    if (pcm.limit() == 0) return false;
+                    pcm.rewind();
+                }
+                int n = Math.min(wanted - filled, pcm.remaining());
+                pcm.get(chunk, filled, n);
+                filled += n;
+                continue;
+            }
+
+            if (stream == null) {
+                stream = nextStream.getAndSet(null);
+                if (stream == null) {
+                    // Next pass not opened yet; a moment of silence rather than a stalled mix
+                    Arrays.fill(chunk, filled, wanted, (byte) 0);
+                    return true;
+                }
+                passBytes = 0;
+                prepareNextStream();
+            }
+            int n = stream.read(chunk, filled, wanted - filled);
+            if (n > 0) {
+                if (capture != null) {
+                    if (capture.remaining() >= n) {
+                        capture.put(chunk, filled, n);
+                    } else {
+                        dropCapture();   // Longer than announced; don't cache a truncated track
+                    }
+                }
+                filled += n;
+                passBytes += n;
+            } else if (n < 0) {
+                closeStream();
+                if (passBytes == 0) return false;
+                if (capture != null && !capture.hasRemaining()) {
+                    // Whole track decoded: cache it and loop from memory from now on
+                    capture.flip();
+                    cache.put(filename, capture);
+                    pcm = capture;
+                    capture = null;
+                } else if (capture != null) {
+                    dropCapture();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives up on caching this play; later passes are streamed from the file.
+     */
+    private void dropCapture() {
+        capture = null;
+        prepareNextStream();
+    }
+
+    /**
+     * Opens the track's next pass on the background executor, for {@link #fill} to pick up.
+     */
+    private void prepareNextStream() {
+        background.execute(() -> {
+            if (closed) return;
+            AudioInputStream next;
+            try {
+                next = AudioMixer.openConverted(filename);
+            } catch (IOException | UnsupportedAudioFileException e) {
+                System.err.println("[Audio] Error reopening BGM " + filename + ": " + e.getMessage());
+                stop();
+                return;
+            }
+            if (next == null) {
+                stop();   // Removed while playing
+                return;
+            }
+            AudioInputStream previous = nextStream.getAndSet(next);
+            if (previous != null) closeQuietly(previous);
+            if (closed) closeNextStream();   // Closed while opening
+        });
+    }
+
+    /**
+     * Ends playback. A first pass that was cut short is handed to the background
+     * executor to finish, so the track still ends up in the cache.
+     */
+    private void close() {
+        if (capture != null && stream != null) {
+            AudioInputStream rest = stream;
+            ByteBuffer partial = capture;
+            stream = null;
+            capture = null;
+            background.execute(() -> continueCapture(rest, partial));
+        }
+        abort();
+    }
+
+    /**
+     * Ends playback and drops whatever was decoded.
+     */
+    private void abort() {
+        closed = true;
+        closeStream();
+        closeNextStream();
+        capture = null;
+        pcm = null;
+    }
+
+    /**
+     * Decodes up to {@link #CAPTURE_STEP_BYTES} more of a cut-short first pass, then
+     * queues the next step; caches the track once it is complete.
+     */
+    private void continueCapture(AudioInputStream rest, ByteBuffer partial) {
+        byte[] buffer = new byte[chunk.length * 16];
+        try {
+            for (int decoded = 0; decoded < CAPTURE_STEP_BYTES; ) {
+                int n = rest.read(buffer);
+                if (n < 0) {
+                    closeQuietly(rest);
+                    if (partial.hasRemaining()) return;   // Shorter than announced
+                    partial.flip();
+                    cache.put(filename, partial);
+                    System.out.println("[Audio] Cached BGM: " + filename);
+                    return;
+                }
+                if (n > partial.remaining()) {
+                    closeQuietly(rest);   // Longer than announced
+                    return;
+                }
+                partial.put(buffer, 0, n);
+                decoded += n;
+            }
+        } catch (IOException e) {
+            System.err.println("[Audio] Error caching BGM " + filename + ": " + e.getMessage());
+            closeQuietly(rest);
+            return;
+        }
+        background.execute(() -> continueCapture(rest, partial));
+    }
+
+    private void closeStream() {
+        if (stream == null) return;
+        closeQuietly(stream);
+        stream = null;
+    }
+
+    private void closeNextStream() {
+        AudioInputStream next = nextStream.getAndSet(null);
+        if (next != null) closeQuietly(next);
+    }
+
+    private static void closeQuietly(AudioInputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
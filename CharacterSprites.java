@@ -0,0 +1,533 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * Loads and caches character sprites scaled to the sprite slot size.
+ *
+ * A character may ship an atlas: {@code name_atlas.json} describing one image and
+ * the region of each mood inside it, e.g.
+ * <pre>
+ * { "image": "Girl_atlas.png",
+ *   "regions": { "default": [0, 0, 512, 1024], "happy": [512, 0, 512, 1024] } }
+ * </pre>
+ * The atlas is decoded and scaled once; each mood is then a sub-image view of it.
+ *
+ * A character may instead be layered: {@code name_layers.json} names a base body and
+ * small expression patches drawn over it at an offset (in base image pixels), e.g.
+ * <pre>
+ * { "base": "Girl_base.png",
+ *   "expressions": { "happy": { "image": "Girl_face_happy.png", "x": 180, "y": 120 } } }
+ * </pre>
+ * The body is scaled and trimmed once and shared by every mood; a mood's sprite only
+ * adds its scaled patch as an overlay, which {@link SpriteLabel} draws over the body. So
+ * each extra expression costs the cache just its patch, not another full body.
+ *
+ * Characters with neither use loose {@code name_mood} / {@code name} files, preferring
+ * {@code .png} (with transparency) over {@code .jpg}.
+ *
+ * Sprites with alpha are kept premultiplied and trimmed to their opaque bounds; the
+ * returned {@link Sprite} carries the offset of the trimmed image inside the slot, and is
+ * cached as a whole.
+ * Missing files and atlases are remembered, so failed lookups don't touch the disk again.
+ *
+ * Slot sizes are logical (design resolution). Images are scaled for the current render
+ * scale bucket and cached per bucket, so resizing within a bucket reuses them.
+ * Lookups are thread-safe so a bucket can be warmed up off the EDT. No lock is held
+ * while decoding: a thread asking for a sprite (or atlas, or layered body) that another
+ * thread is already loading waits for that one result, and every other lookup proceeds.
+ */
+public class CharacterSprites {
+
+    private static final String ATLAS_SUFFIX = "_atlas.json";
+    private static final String LAYERS_SUFFIX = "_layers.json";
+    private static final String[] SPRITE_EXTENSIONS = {".png", ".jpg"};
+    private static final String DEFAULT_REGION = "default";
+    private static final Gson GSON = new Gson();
+
+    /**
+     * JSON layout of an atlas index file.
+     */
+    private static class AtlasIndex {
+        String image;
+        Map<String, int[]> regions;
+    }
+
+    /**
+     * Decoded and scaled atlas of one character.
+     */
+    private static class Atlas {
+        final BufferedImage image;
+        final Map<String, int[]> regions;   // Already in scaled coordinates
+        Atlas(BufferedImage image, Map<String, int[]> regions) {
+            this.image = image;
+            this.regions = regions;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final ImageCache cache;
+    private volatile float scale = 1f;
+    /**
+     * JSON layout of a layered sprite file.
+     */
+    private static class LayerIndex {
+        String base;
+        Map<String, Patch> expressions;
+    }
+
+    private static class Patch {
+        String image;
+        int x;
+        int y;
+    }
+
+    /**
+     * Base body of a layered character, scaled to the slot and trimmed once and reused for every mood.
+     */
+    private static class LayeredBase {
+        final Sprite body;
+        final double scaleX;
+        final double scaleY;
+        final Map<String, Patch> expressions;
+        LayeredBase(Sprite body, double scaleX, double scaleY, Map<String, Patch> expressions) {
+            this.body = body;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.expressions = expressions;
+        }
+    }
+
+    /**
+     * An image positioned inside a slot, optionally with a second image drawn over it
+     * (a layered character's expression). Offsets and sizes are in image pixels, which
+     * are {@code scale} times the logical size.
+     */
+    public static final class Sprite {
+        public final Image image;
+        public final int x;
+        public final int y;
+        public final float scale;
+        public final String name;   // Character and mood it was resolved for, if any
+        public final String mood;
+        public final Image overlay;   // Drawn over image, or null
+        public final int overlayX;
+        public final int overlayY;
+
+        Sprite(Image image, int x, int y) {
+            this(image, x, y, 1f, null, null);
+        }
+
+        Sprite(Image image, int x, int y, float scale, String name, String mood) {
+            this(image, x, y, scale, name, mood, null, 0, 0);
+        }
+
+        Sprite(Image image, int x, int y, float scale, String name, String mood,
+               Image overlay, int overlayX, int overlayY) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.scale = scale;
+            this.name = name;
+            this.mood = mood;
+            this.overlay = overlay;
+            this.overlayX = overlayX;
+            this.overlayY = overlayY;
+        }
+
+        /**
+         * The same images and offsets, labelled for a scale and character.
+         */
+        Sprite at(float scale, String name, String mood) {
+            return new Sprite(image, x, y, scale, name, mood, overlay, overlayX, overlayY);
+        }
+
+        /**
+         * Full-slot image such as a background, already scaled by {@code scale}.
+         */
+        public static Sprite of(Image image, float scale) {
+            return new Sprite(image, 0, 0, scale, null, null);
+        }
+
+        public int getWidth() { return image.getWidth(null); }
+        public int getHeight() { return image.getHeight(null); }
+    }
+
+    private final Map<String, Atlas> atlases = new ConcurrentHashMap<>();
+    private final Map<String, LayeredBase> layeredBases = new ConcurrentHashMap<>();
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();   // Negative lookups: files and atlases
+    private final Map<String, FutureTask<?>> loading = new HashMap<>();   // In progress, by key; guarded by itself
+
+    public CharacterSprites(int width, int height, ImageCache cache) {
+        this.width = width;
+        this.height = height;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the sprite for the mood at the current render scale, falling back to the
+     * character's default, or null when neither exists.
+     */
+    public Sprite get(String name, String mood) {
+        return get(name, mood, scale);
+    }
+
+    /**
+     * Same as {@link #get(String, String)} for an explicit scale bucket; used to warm up
+     * a new bucket in the background before switching to it.
+     */
+    public Sprite get(String name, String mood, float renderScale) {
+        boolean hasMood = mood != null && !mood.isEmpty() && !"null".equals(mood);
+        String key = "sprite@" + renderScale + ":" + (hasMood ? name + "_" + mood : name);
+
+        Sprite sprite = cached(key, name, hasMood ? mood : null, renderScale);
+        if (sprite != null || missing.contains(key)) return sprite;
+
+        return loadOnce(key, () -> {
+            Sprite loaded = cached(key, name, hasMood ? mood : null, renderScale);
+            if (loaded != null || missing.contains(key)) return loaded;   // Finished while we queued
+
+            int w = Math.max(1, Math.round(width * renderScale));
+            int h = Math.max(1, Math.round(height * renderScale));
+            Sprite resolved = resolve(name, hasMood ? mood : null, w, h, renderScale);
+            if (resolved == null) {
+                missing.add(key);
+                return null;
+            }
+            cache.putSprite(key, resolved);   // The offset is evicted together with the image
+            return resolved.at(renderScale, name, hasMood ? mood : null);
+        });
+    }
+
+    private Sprite cached(String key, String name, String mood, float renderScale) {
+        Sprite sprite = cache.getSprite(key);
+        return sprite != null ? sprite.at(renderScale, name, mood) : null;
+    }
+
+    /**
+     * Runs load for a key unless another thread is already loading it, in which case
+     * that thread's result is awaited instead. Nothing is locked while load runs.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadOnce(String key, Callable<T> load) {
+        FutureTask<T> task;
+        boolean owner = false;
+        synchronized (loading) {
+            task = (FutureTask<T>) loading.get(key);
+            if (task == null) {
+                task = new FutureTask<>(load);
+                loading.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (loading) {
+                    loading.remove(key);
+                }
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Switches the scale bucket used by {@link #get(String, String)}.
+     */
+    public void setScale(float renderScale) {
+        this.scale = renderScale;
+        // Decoded atlases and bodies of other buckets aren't needed to build new sprites
+        String suffix = "@" + renderScale;
+        atlases.keySet().removeIf(key -> !key.endsWith(suffix));
+        layeredBases.keySet().removeIf(key -> !key.endsWith(suffix));
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * Forgets negative lookups, e.g. after assets were added while running.
+     */
+    public void clearMissing() {
+        missing.clear();
+    }
+
+    private Sprite resolve(String name, String mood, int w, int h, float renderScale) {
+        Atlas atlas = getOrLoadAtlas(name, w, h, renderScale);
+        if (atlas != null) {
+            int[] region = mood != null ? atlas.regions.get(mood) : null;
+            if (region == null) region = atlas.regions.get(DEFAULT_REGION);
+            if (region != null) {
+                // Views into the shared atlas raster; trimming keeps them views
+                return trim(atlas.image.getSubimage(region[0], region[1], region[2], region[3]), false);
+            }
+        }
+
+        LayeredBase layered = getOrLoadLayeredBase(name, w, h, renderScale);
+        if (layered != null) {
+            return withExpression(layered, mood);
+        }
+
+        if (mood != null) {
+            BufferedImage image = loadScaled(name + "_" + mood, w, h);
+            if (image != null) return trim(image, true);
+            // Share the default sprite instead of decoding it again
+            return get(name, null, renderScale);
+        }
+        BufferedImage image = loadScaled(name, w, h);
+        return image != null ? trim(image, true) : null;
+    }
+
+    /**
+     * Loads {@code base.png} (with alpha) or else {@code base.jpg}, scaled to the slot.
+     */
+    private BufferedImage loadScaled(String baseName, int width, int height) {
+        for (String extension : SPRITE_EXTENSIONS) {
+            String filename = baseName + extension;
+            if (missing.contains(filename)) continue;
+
+            BufferedImage source = null;
+            try {
+                // Smallest mip level that still covers the slot
+                source = Mipmaps.read(filename, width, height);
+            } catch (IOException e) {
+                System.err.println("[Sprite] Error reading " + filename + ": " + e.getMessage());
+            }
+            if (source == null) {
+                missing.add(filename);
+                continue;
+            }
+            return ImageUtils.scale(source, width, height, imageTypeFor(source));
+        }
+        return null;
+    }
+
+    /**
+     * Crops transparent margins so they aren't blended every frame.
+     * Opaque images are returned as they are.
+     */
+    private static Sprite trim(BufferedImage image, boolean copy) {
+        if (!image.getColorModel().hasAlpha()) {
+            return new Sprite(image, 0, 0);
+        }
+
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int minX = w, minY = h, maxX = -1, maxY = -1;
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                if ((row[x] >>> 24) != 0) {
+                    if (x < minX) minX = x;
+                    if (x > maxX) maxX = x;
+                    if (y < minY) minY = y;
+                    maxY = y;
+                }
+            }
+        }
+        if (maxX < 0) {
+            return new Sprite(image.getSubimage(0, 0, 1, 1), 0, 0);  // Fully transparent
+        }
+        if (minX == 0 && minY == 0 && maxX == w - 1 && maxY == h - 1) {
+            return new Sprite(image, 0, 0);
+        }
+
+        BufferedImage view = image.getSubimage(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        if (!copy) {
+            return new Sprite(view, minX, minY);
+        }
+        // Compact copy so the transparent margins don't stay in memory
+        BufferedImage trimmed = new BufferedImage(view.getWidth(), view.getHeight(), image.getType());
+        Graphics2D g2d = trimmed.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.drawImage(view, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return new Sprite(trimmed, minX, minY);
+    }
+
+    private Atlas getOrLoadAtlas(String name, int width, int height, float renderScale) {
+        Atlas atlas = atlases.get(name + "@" + renderScale);
+        if (atlas != null) return atlas;
+        if (missing.contains(name + ATLAS_SUFFIX)) return null;
+        return loadOnce("atlas@" + renderScale + ":" + name, () -> loadAtlas(name, width, height, renderScale));
+    }
+
+    private Atlas loadAtlas(String name, int width, int height, float renderScale) {
+        Atlas atlas = atlases.get(name + "@" + renderScale);
+        if (atlas != null) return atlas;
+
+        String indexFile = name + ATLAS_SUFFIX;
+        if (missing.contains(indexFile)) return null;
+
+        Assets assets = Assets.getInstance();
+        if (!assets.exists(indexFile)) {
+            missing.add(indexFile);
+            return null;
+        }
+
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(assets.openStream(indexFile), StandardCharsets.UTF_8))) {
+            AtlasIndex index = GSON.fromJson(reader, AtlasIndex.class);
+            atlas = buildAtlas(index, width, height);
+        } catch (IOException | JsonSyntaxException e) {
+            System.err.println("[Sprite] Error reading atlas " + indexFile + ": " + e.getMessage());
+        }
+
+        if (atlas == null) {
+            missing.add(indexFile);
+            return null;
+        }
+        atlases.put(name + "@" + renderScale, atlas);
+        System.out.println("[Sprite] Loaded atlas for " + name + " (" + atlas.regions.size() + " moods)");
+        return atlas;
+    }
+
+    private LayeredBase getOrLoadLayeredBase(String name, int width, int height, float renderScale) {
+        LayeredBase layered = layeredBases.get(name + "@" + renderScale);
+        if (layered != null) return layered;
+        if (missing.contains(name + LAYERS_SUFFIX)) return null;
+        return loadOnce("layers@" + renderScale + ":" + name, () -> loadLayeredBase(name, width, height, renderScale));
+    }
+
+    private LayeredBase loadLayeredBase(String name, int width, int height, float renderScale) {
+        LayeredBase layered = layeredBases.get(name + "@" + renderScale);
+        if (layered != null) return layered;
+
+        String indexFile = name + LAYERS_SUFFIX;
+        if (missing.contains(indexFile)) return null;
+
+        Assets assets = Assets.getInstance();
+        if (!assets.exists(indexFile)) {
+            missing.add(indexFile);
+            return null;
+        }
+
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(assets.openStream(indexFile), StandardCharsets.UTF_8))) {
+            LayerIndex index = GSON.fromJson(reader, LayerIndex.class);
+            if (index != null && index.base != null) {
+                Dimension size = Mipmaps.readSize(index.base);
+                BufferedImage source = size != null ? Mipmaps.read(index.base, width, height) : null;
+                if (source != null) {
+                    BufferedImage body = ImageUtils.scale(source, width, height, imageTypeFor(source));
+                    // Patch offsets are in full-resolution base pixels
+                    layered = new LayeredBase(trim(body, true),
+                        (double) width / size.width, (double) height / size.height,
+                        index.expressions != null ? index.expressions : new HashMap<>());
+                }
+            }
+        } catch (IOException | JsonSyntaxException e) {
+            System.err.println("[Sprite] Error reading layers " + indexFile + ": " + e.getMessage());
+        }
+
+        if (layered == null) {
+            missing.add(indexFile);
+            return null;
+        }
+        layeredBases.put(name + "@" + renderScale, layered);
+        return layered;
+    }
+
+    /**
+     * The shared body with the mood's expression patch as its overlay. Only the small
+     * patch is decoded and scaled per mood.
+     */
+    private Sprite withExpression(LayeredBase layered, String mood) {
+        Patch patch = mood != null ? layered.expressions.get(mood) : null;
+        if (patch == null || patch.image == null || missing.contains(patch.image)) {
+            return layered.body;
+        }
+
+        BufferedImage overlay = null;
+        try {
+            Dimension size = Mipmaps.readSize(patch.image);
+            if (size != null) {
+                int patchW = Math.max(1, (int) Math.round(size.width * layered.scaleX));
+                int patchH = Math.max(1, (int) Math.round(size.height * layered.scaleY));
+                BufferedImage source = Mipmaps.read(patch.image, patchW, patchH);
+                if (source != null) overlay = ImageUtils.scale(source, patchW, patchH, imageTypeFor(source));
+            }
+        } catch (IOException e) {
+            System.err.println("[Sprite] Error reading expression " + patch.image + ": " + e.getMessage());
+        }
+        if (overlay == null) {
+            missing.add(patch.image);
+            return layered.body;
+        }
+
+        Sprite trimmed = trim(overlay, true);
+        Sprite body = layered.body;
+        return new Sprite(body.image, body.x, body.y, 1f, null, null, trimmed.image,
+                          (int) Math.round(patch.x * layered.scaleX) + trimmed.x,
+                          (int) Math.round(patch.y * layered.scaleY) + trimmed.y);
+    }
+
+    /**
+     * Sprites with alpha use premultiplied pixels, which blend without a per-pixel divide.
+     */
+    private static int imageTypeFor(BufferedImage source) {
+        return source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+    }
+
+    /**
+     * Decodes the atlas once and scales it so a single cell matches the sprite slot.
+     * Cells are expected to share the size of the default (or first) region.
+     */
+    private static Atlas buildAtlas(AtlasIndex index, int width, int height) throws IOException {
+        if (index == null || index.image == null || index.regions == null || index.regions.isEmpty()) {
+            return null;
+        }
+        Dimension size = Mipmaps.readSize(index.image);
+        if (size == null) return null;
+
+        // Regions are in full-resolution pixels; only the needed mip level is decoded
+        int[] cell = index.regions.getOrDefault(DEFAULT_REGION, index.regions.values().iterator().next());
+        double sx = (double) width / cell[2];
+        double sy = (double) height / cell[3];
+        int scaledW = (int) Math.round(size.width * sx);
+        int scaledH = (int) Math.round(size.height * sy);
+        BufferedImage source = Mipmaps.read(index.image, scaledW, scaledH);
+        if (source == null) return null;
+        BufferedImage scaled = ImageUtils.scale(source, scaledW, scaledH, imageTypeFor(source));
+
+        Map<String, int[]> regions = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : index.regions.entrySet()) {
+            int[] r = entry.getValue();
+            if (r == null || r.length < 4) continue;
+            int x = Math.min(scaledW - 1, (int) Math.round(r[0] * sx));
+            int y = Math.min(scaledH - 1, (int) Math.round(r[1] * sy));
+            int w = Math.min(scaledW - x, (int) Math.round(r[2] * sx));
+            int h = Math.min(scaledH - y, (int) Math.round(r[3] * sy));
+            if (w <= 0 || h <= 0) continue;
+            regions.put(entry.getKey(), new int[]{x, y, w, h});
+        }
+        return new Atlas(scaled, regions);
+    }
+}
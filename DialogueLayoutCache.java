@@ -0,0 +1,211 @@
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background pre-layout stage for upcoming dialogue lines.
+ * Line breaks are computed for the dialogue text area width and the glyphs
+ * are rasterized once off the EDT, so new CJK characters don't hitch on
+ * their first display. Glyphs are drawn at the viewport's render scale, the
+ * size they are painted at; a new scale warms the cached lines again.
+ * The worker is a daemon thread and ends with the game.
+ */
+public class DialogueLayoutCache {
+
+    private static final int LOOKAHEAD_LINES = 8;     // DIALOGUE lines to prepare ahead
+    private static final int MAX_SCAN_LINES = 64;     // Script lines scanned per prefetch
+    private static final int MAX_ENTRIES = 128;
+    private static final int WIDTH_SAFETY_PX = 2;     // Guards against rounding differences with JTextArea
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dialogue-prelayout");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // LRU of text -> text with explicit line breaks for the current font/width
+    private final Map<String, String> layouts = new LinkedHashMap<String, String>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private Font font;
+    private FontRenderContext frc;
+    private int wrapWidth;
+    private float renderScale = 1f;
+    private int generation;
+
+    // Scratch surface used only by the worker thread for glyph warm-up
+    private BufferedImage scratch;
+
+    /**
+     * Sets the font and wrap width the layouts are computed for.
+     * Cached layouts are dropped when either changes.
+     */
+    public synchronized void configure(Font font, FontRenderContext frc, int wrapWidth) {
+        int width = Math.max(1, wrapWidth - WIDTH_SAFETY_PX);
+        if (font.equals(this.font) && width == this.wrapWidth && frc.equals(this.frc)) {
+            return;
+        }
+        this.font = font;
+        this.frc = frc;
+        this.wrapWidth = width;
+        generation++;
+        layouts.clear();
+    }
+
+    /**
+     * Sets the scale the dialogue is painted at. Line breaks don't depend on it, so cached
+     * layouts are kept and only their glyphs are drawn again at the new size.
+     */
+    public void setRenderScale(float scale) {
+        List<String> cached;
+        synchronized (this) {
+            if (scale == renderScale) return;
+            renderScale = scale;
+            if (font == null || layouts.isEmpty()) return;
+            cached = new ArrayList<>(layouts.values());
+        }
+        worker.execute(() -> {
+            for (String layout : cached) {
+                Font warmFont;
+                int width;
+                synchronized (this) {
+                    if (scale != renderScale) return;   // Superseded by another resize
+                    warmFont = font;
+                    width = wrapWidth;
+                }
+                warmGlyphs(Arrays.asList(layout.split("\n", -1)), warmFont, width, scale);
+            }
+        });
+    }
+
+    /**
+     * Queues the next few DIALOGUE lines after {@code fromIndex} for layout and glyph warm-up.
+     * Must be called on the EDT; the texts are copied before handing off to the worker.
+     */
+    public void prefetch(List<ScriptData> lines, int fromIndex) {
+        if (lines == null) return;
+
+        List<String> pending = new ArrayList<>(LOOKAHEAD_LINES);
+        int end = Math.min(lines.size(), fromIndex + MAX_SCAN_LINES);
+        for (int i = Math.max(0, fromIndex); i < end && pending.size() < LOOKAHEAD_LINES; i++) {
+            ScriptData line = lines.get(i);
+            if (line.isType(ScriptData.TYPE_DIALOGUE) && line.text != null && !line.text.isEmpty()) {
+                pending.add(line.text);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        final int requestedGeneration;
+        synchronized (this) {
+            if (font == null) return;
+            pending.removeIf(layouts::containsKey);
+            if (pending.isEmpty()) return;
+            requestedGeneration = generation;
+        }
+
+        worker.execute(() -> {
+            for (String text : pending) {
+                if (!prepare(text, requestedGeneration)) return;
+            }
+        });
+    }
+
+    /**
+     * Returns the prepared text with explicit line breaks, or null if it isn't ready yet.
+     */
+    public synchronized String getLayout(String text) {
+        return text != null ? layouts.get(text) : null;
+    }
+
+    private boolean prepare(String text, int requestedGeneration) {
+        Font layoutFont;
+        FontRenderContext layoutFrc;
+        int width;
+        float scale;
+        synchronized (this) {
+            if (requestedGeneration != generation) return false;
+            if (layouts.containsKey(text)) return true;
+            layoutFont = font;
+            layoutFrc = frc;
+            width = wrapWidth;
+            scale = renderScale;
+        }
+
+        List<String> rows = breakLines(text, layoutFont, layoutFrc, width);
+        warmGlyphs(rows, layoutFont, width, scale);
+
+        synchronized (this) {
+            if (requestedGeneration != generation) return false;
+            layouts.put(text, String.join("\n", rows));
+        }
+        return true;
+    }
+
+    private static List<String> breakLines(String text, Font font, FontRenderContext frc, int width) {
+        List<String> rows = new ArrayList<>();
+        for (String paragraph : text.split("\n", -1)) {
+            if (paragraph.isEmpty()) {
+                rows.add("");
+                continue;
+            }
+            AttributedString attributed = new AttributedString(paragraph);
+            attributed.addAttribute(TextAttribute.FONT, font);
+            LineBreakMeasurer measurer = new LineBreakMeasurer(attributed.getIterator(), frc);
+
+            int start = 0;
+            while (measurer.getPosition() < paragraph.length()) {
+                int next = measurer.nextOffset(width);
+                if (next <= start) next = start + 1;  // Always make progress on very narrow widths
+                rows.add(paragraph.substring(start, next));
+                measurer.setPosition(next);
+                start = next;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Draws the rows once at the given scale so the font rasterizer fills its
+     * glyph cache with the same size and hints the dialogue text area paints with.
+     * Worker thread only.
+     */
+    private void warmGlyphs(List<String> rows, Font font, int width, float scale) {
+        int scaledWidth = Math.max(1, (int) Math.ceil(width * scale));
+        int rowHeight = Math.max(1, (int) Math.ceil(font.getSize2D() * 1.5f * scale));
+        if (scratch == null || scratch.getWidth() < scaledWidth || scratch.getHeight() < rowHeight) {
+            scratch = new BufferedImage(scaledWidth, rowHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2d = scratch.createGraphics();
+        try {
+            Object desktopHints = Toolkit.getDefaultToolkit().getDesktopProperty("awt/font/desktophints");
+            if (desktopHints instanceof Map) {
+                g2d.addRenderingHints((Map<?, ?>) desktopHints);
+            }
+            g2d.scale(scale, scale);
+            g2d.setFont(font);
+            g2d.setColor(Color.WHITE);
+            int baseline = g2d.getFontMetrics().getAscent();
+            for (String row : rows) {
+                g2d.drawString(row, 0, baseline);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.util.List;
 import javax.swing.*;
 
 /**
@@ -31,6 +32,9 @@ public class DialoguePanel extends JPanel {
     private boolean isTyping = false;
     private Runnable onTypingComplete;
 
+    // Pre-computed line breaks for upcoming lines
+    private final DialogueLayoutCache layoutCache = new DialogueLayoutCache();
+
     public DialoguePanel(int width, int height) {
         int dialogHeight = height / 4;
         int nameFontSize = height / 30;
@@ -133,6 +137,7 @@ public class DialoguePanel extends JPanel {
      * Updates the dialogue content with null safety.
      */
     public void uploadcontent(String name, String text) {
+        dialogueText.setLineWrap(true);
         nameLabel.setText(name != null ? name : "");
         dialogueText.setText(text != null ? text : "");
     }
@@ -184,12 +189,37 @@ public class DialoguePanel extends JPanel {
         this.typeSpeed = msPerChar;
     }
 
+    /**
+     * Sets the scale the viewport paints at, so glyphs are prepared at that size.
+     */
+    public void setRenderScale(float scale) {
+        layoutCache.setRenderScale(scale);
+    }
+
+    /**
+     * Prepares layouts for the next dialogue lines in the background.
+     */
+    public void prefetchLayouts(List<ScriptData> lines, int fromIndex) {
+        Font font = dialogueText.getFont();
+        Insets insets = dialogueText.getInsets();
+        layoutCache.configure(font, dialogueText.getFontMetrics(font).getFontRenderContext(),
+                              dialogueText.getWidth() - insets.left - insets.right);
+        layoutCache.prefetch(lines, fromIndex);
+    }
+
     /**
      * Displays text with typing effect.
      */
     public void typeText(String name, String text, Runnable onComplete) {
         nameLabel.setText(name != null ? name : "");
         this.fullText = text != null ? text : "";
+
+        // Use the prepared line breaks when ready, so words don't jump lines while typing
+        String laidOut = layoutCache.getLayout(fullText);
+        dialogueText.setLineWrap(laidOut == null);
+        if (laidOut != null) {
+            this.fullText = laidOut;
+        }
         this.currentCharIndex = 0;
         this.isTyping = true;
         this.onTypingComplete = onComplete;
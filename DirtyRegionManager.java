@@ -0,0 +1,183 @@
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.swing.*;
+
+/**
+ * Repaint manager that composites the game screen from per-layer dirty rectangles.
+ *
+ * Repaints requested anywhere inside the game's layered pane are collected as one
+ * rectangle per layer (background, sprite slots, text box, effects, ...). Once per
+ * event-queue pass the layer rectangles are merged where they overlap and only the
+ * resulting regions are painted. Components outside the layered pane (dialogs,
+ * other windows) go through the standard repaint manager.
+ *
+ * A frame renderer can take over painting: the merged dirty regions are then handed
+ * to it, e.g. to draw the scene scaled into a resized window, or to redraw the whole
+ * scene into a page-flipped buffer in exclusive fullscreen.
+ *
+ * Each flushed frame is reported to an optional listener with the repainted regions
+ * and pixel count, which the F3 debug overlay displays.
+ */
+public class DirtyRegionManager extends RepaintManager {
+
+    public interface RepaintListener {
+        void onRepaint(List<Rectangle> regions, Map<Integer, Rectangle> layers, long pixels);
+    }
+
+    public interface FrameRenderer {
+        void renderFrame(List<Rectangle> regions);
+    }
+
+    private final JLayeredPane root;
+    private final Map<Integer, Rectangle> dirtyByLayer = new TreeMap<>();
+    private final Runnable flushTask = this::flush;
+    private boolean flushScheduled;
+
+    // Regions from this component are painted but not reported (the debug overlay itself)
+    private volatile Component excluded;
+    private volatile RepaintListener listener;
+    private FrameRenderer renderer;
+
+    private DirtyRegionManager(JLayeredPane root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a manager for the given layered pane and makes it the current repaint manager.
+     */
+    public static DirtyRegionManager install(JLayeredPane root) {
+        DirtyRegionManager manager = new DirtyRegionManager(root);
+        RepaintManager.setCurrentManager(manager);
+        return manager;
+    }
+
+    public void setRepaintListener(RepaintListener listener, Component excluded) {
+        this.listener = listener;
+        this.excluded = excluded;
+    }
+
+    /**
+     * Routes dirty frames to a renderer, or back to direct region painting when null.
+     */
+    public void setFrameRenderer(FrameRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public FrameRenderer getFrameRenderer() {
+        return renderer;
+    }
+
+    @Override
+    public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) return;
+
+        // Walk up to the layered pane, translating into its coordinates
+        Component child = c;
+        while (child != root && child != null && child.getParent() != root) {
+            if (!child.isVisible()) return;
+            x += child.getX();
+            y += child.getY();
+            child = child.getParent();
+        }
+        if (child == null) {
+            super.addDirtyRegion(c, x, y, w, h);
+            return;
+        }
+        if (!root.isShowing()) return;
+
+        int layer;
+        if (c == excluded) {
+            layer = Integer.MAX_VALUE;
+        } else if (child == root) {
+            layer = Integer.MIN_VALUE;  // The pane itself, e.g. a child being hidden
+        } else {
+            layer = root.getLayer(child);
+        }
+        if (child != root) {
+            if (!child.isVisible()) return;
+            x += child.getX();
+            y += child.getY();
+        }
+
+        // Clip to the screen; markCompletelyDirty passes huge sizes
+        int x1 = Math.max(0, x);
+        int y1 = Math.max(0, y);
+        int x2 = (int) Math.min((long) root.getWidth(), (long) x + w);
+        int y2 = (int) Math.min((long) root.getHeight(), (long) y + h);
+        if (x2 <= x1 || y2 <= y1) return;
+
+        boolean schedule;
+        synchronized (this) {
+            Rectangle dirty = dirtyByLayer.get(layer);
+            if (dirty == null) {
+                dirtyByLayer.put(layer, new Rectangle(x1, y1, x2 - x1, y2 - y1));
+            } else {
+                dirty.add(new Rectangle(x1, y1, x2 - x1, y2 - y1));
+            }
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) {
+            SwingUtilities.invokeLater(flushTask);
+        }
+    }
+
+    private void flush() {
+        Map<Integer, Rectangle> layers;
+        synchronized (this) {
+            flushScheduled = false;
+            if (dirtyByLayer.isEmpty()) return;
+            layers = new TreeMap<>(dirtyByLayer);
+            dirtyByLayer.clear();
+        }
+
+        validateInvalidComponents();
+
+        List<Rectangle> regions = mergeOverlapping(layers.values());
+        if (renderer != null) {
+            renderer.renderFrame(regions);
+        } else {
+            for (Rectangle region : regions) {
+                root.paintImmediately(region);
+            }
+        }
+
+        // Frames that only repainted the overlay aren't reported, or it would never settle
+        RepaintListener current = listener;
+        if (current == null) return;
+        if (layers.remove(Integer.MAX_VALUE) != null) {
+            if (layers.isEmpty()) return;
+            regions = mergeOverlapping(layers.values());
+        }
+        long pixels = 0;
+        for (Rectangle region : regions) {
+            pixels += (long) region.width * region.height;
+        }
+        current.onRepaint(regions, layers, pixels);
+    }
+
+    // Unions intersecting rectangles until none overlap, so no pixel is painted twice
+    private static List<Rectangle> mergeOverlapping(Iterable<Rectangle> rects) {
+        List<Rectangle> regions = new ArrayList<>();
+        for (Rectangle rect : rects) {
+            regions.add(new Rectangle(rect));
+        }
+        boolean merged = true;
+        while (merged && regions.size() > 1) {
+            merged = false;
+            for (int i = 0; i < regions.size() && !merged; i++) {
+                for (int j = i + 1; j < regions.size(); j++) {
+                    if (regions.get(i).intersects(regions.get(j))) {
+                        regions.get(i).add(regions.remove(j));
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,125 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.List;
+import javax.swing.*;
+
+/**
+ * Exclusive fullscreen with active rendering.
+ *
+ * While active, the frame ignores OS paint requests and Swing's back buffer is turned
+ * off. Every dirty frame the whole layered scene is painted in one pass into a
+ * page-flipped BufferStrategy (3 buffers when the device flips, otherwise 2) and shown.
+ * Hosts without a display or without fullscreen support stay windowed.
+ */
+public class FullscreenMode implements DirtyRegionManager.FrameRenderer {
+
+    private final JFrame frame;
+    private final JComponent scene;
+    private final DirtyRegionManager repaintManager;
+
+    private GraphicsDevice device;
+    private BufferStrategy strategy;
+    private DirtyRegionManager.FrameRenderer previousRenderer;
+    private boolean active;
+
+    public FullscreenMode(JFrame frame, JComponent scene, DirtyRegionManager repaintManager) {
+        this.frame = frame;
+        this.scene = scene;
+        this.repaintManager = repaintManager;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Switches to exclusive fullscreen. Returns false, leaving the window as it was,
+     * if the host can't do it.
+     */
+    public boolean enter() {
+        if (active) return true;
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("[Display] Headless environment; staying windowed");
+            return false;
+        }
+
+        device = frame.getGraphicsConfiguration().getDevice();
+        if (!device.isFullScreenSupported()) {
+            System.out.println("[Display] Exclusive fullscreen not supported; staying windowed");
+            return false;
+        }
+
+        try {
+            frame.dispose();                 // Decorations can only change while undisplayable
+            frame.setUndecorated(true);
+            frame.setIgnoreRepaint(true);
+            device.setFullScreenWindow(frame);
+            frame.validate();
+
+            boolean flipping = frame.getGraphicsConfiguration().getBufferCapabilities().isPageFlipping();
+            frame.createBufferStrategy(flipping ? 3 : 2);
+            strategy = frame.getBufferStrategy();
+        } catch (RuntimeException e) {
+            System.err.println("[Display] Failed to enter fullscreen: " + e.getMessage());
+            restoreWindow();
+            return false;
+        }
+
+        active = true;
+        repaintManager.setDoubleBufferingEnabled(false);   // Paint straight into the flip buffer
+        previousRenderer = repaintManager.getFrameRenderer();
+        repaintManager.setFrameRenderer(this);
+        repaintManager.markCompletelyDirty(scene);
+        System.out.println("[Display] Fullscreen " + frame.getWidth() + "x" + frame.getHeight()
+                           + ", page flipping: " + strategy.getCapabilities().isPageFlipping());
+        return true;
+    }
+
+    public void exit() {
+        if (!active) return;
+        active = false;
+        repaintManager.setFrameRenderer(previousRenderer);
+        previousRenderer = null;
+        repaintManager.setDoubleBufferingEnabled(true);
+        if (strategy != null) {
+            strategy.dispose();
+            strategy = null;
+        }
+        restoreWindow();
+        repaintManager.markCompletelyDirty(scene);
+    }
+
+    private void restoreWindow() {
+        if (device != null && device.getFullScreenWindow() == frame) {
+            device.setFullScreenWindow(null);
+        }
+        frame.dispose();
+        frame.setUndecorated(false);
+        frame.setIgnoreRepaint(false);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Paints the full scene into the back buffer and flips it, redrawing if the
+     * buffer contents were lost in the meantime. Page flipping leaves the back buffer
+     * stale, so every frame is drawn in full regardless of the dirty regions.
+     */
+    @Override
+    public void renderFrame(List<Rectangle> regions) {
+        if (strategy == null) return;
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+                    scene.paint(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
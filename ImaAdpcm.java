@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.io.InputStream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Pure-Java decoder for IMA ADPCM WAV files (format tag 0x11), which javax.sound.sampled
+ * can't read.
+ *
+ * IMA ADPCM stores 4 bits per sample, a quarter of 16-bit PCM, and decodes with a few
+ * adds per sample. Files are written by {@link AdpcmEncoder} or any tool that exports
+ * "IMA ADPCM WAV". Decoding is incremental: one block (about a thousand frames) is
+ * decoded at a time as the returned stream is read, so it feeds streamed BGM as well as
+ * fully decoded clips. The frame length is known up front, so decoded tracks can be
+ * captured by the {@link PcmCache}.
+ */
+public final class ImaAdpcm {
+
+    static final int FORMAT_TAG = 0x11;
+
+    static final int[] STEP_TABLE = {
+        7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+        50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230,
+        253, 279, 307, 337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963,
+        1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066, 2272, 2499, 2749, 3024, 3327,
+        3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487,
+        12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    static final int[] INDEX_TABLE = {-1, -1, -1, -1, 2, 4, 6, 8};
+
+    private static final int MAX_HEADER_BYTES = 1 << 16;
+
+    private ImaAdpcm() {}
+
+    /**
+     * Opens the stream as 16-bit PCM if it is an IMA ADPCM WAV file. Otherwise the stream
+     * is reset to where it was and null is returned, so another decoder can try it.
+     * The stream must support mark/reset.
+     */
+    public static AudioInputStream open(InputStream in) throws IOException {
+        in.mark(MAX_HEADER_BYTES);
+        byte[] header = new byte[12];
+        if (!readFully(in, header, header.length) || !tag(header, 0, "RIFF") || !tag(header, 8, "WAVE")) {
+            in.reset();
+            return null;
+        }
+
+        int channels = 0, sampleRate = 0, blockAlign = 0, samplesPerBlock = 0;
+        long factFrames = -1;
+        byte[] chunk = new byte[8];
+        while (true) {
+            if (!readFully(in, chunk, chunk.length)) {
+                in.reset();
+                return null;
+            }
+            long size = u32(chunk, 4);
+            if (tag(chunk, 0, "fmt ")) {
+                byte[] fmt = new byte[(int) Math.min(size, 64)];
+                if (!readFully(in, fmt, fmt.length) || fmt.length < 20 || u16(fmt, 0) != FORMAT_TAG) {
+                    in.reset();
+                    return null;
+                }
+                channels = u16(fmt, 2);
+                sampleRate = (int) u32(fmt, 4);
+                blockAlign = u16(fmt, 12);
+                samplesPerBlock = u16(fmt, 18);
+                skipFully(in, size - fmt.length + (size & 1));
+            } else if (tag(chunk, 0, "fact") && size >= 4) {
+                byte[] fact = new byte[4];
+                if (!readFully(in, fact, 4)) throw new IOException("Truncated fact chunk");
+                factFrames = u32(fact, 0);
+                skipFully(in, size - 4 + (size & 1));
+            } else if (tag(chunk, 0, "data")) {
+                if (channels == 0) {
+                    in.reset();   // Not IMA ADPCM, or no fmt before the data
+                    return null;
+                }
+                return openData(in, channels, sampleRate, blockAlign, samplesPerBlock, size, factFrames);
+            } else {
+                skipFully(in, size + (size & 1));
+            }
+        }
+    }
+
+    private static AudioInputStream openData(InputStream in, int channels, int sampleRate, int blockAlign,
+                                             int samplesPerBlock, long dataSize, long factFrames) throws IOException {
+        if (channels < 1 || channels > 2 || blockAlign <= 4 * channels || sampleRate <= 0) {
+            throw new IOException("Unsupported IMA ADPCM layout: " + channels + " channels, block " + blockAlign);
+        }
+        int expected = (blockAlign - 4 * channels) * 2 / channels + 1;
+        if (samplesPerBlock != expected) samplesPerBlock = expected;   // Some writers leave it out
+
+        long frames = factFrames;
+        if (frames < 0) {
+            long fullBlocks = dataSize / blockAlign;
+            long rest = dataSize % blockAlign;
+            frames = fullBlocks * samplesPerBlock + (rest > 4 * channels ? (rest - 4 * channels) * 2 / channels + 1 : 0);
+        }
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        Decoder decoder = new Decoder(in, channels, blockAlign, samplesPerBlock, dataSize, frames);
+        return new AudioInputStream(decoder, format, frames >= 0 ? frames : AudioSystem.NOT_SPECIFIED);
+    }
+
+    /**
+     * Decodes one block at a time into little-endian 16-bit PCM.
+     */
+    private static final class Decoder extends InputStream {
+        private final InputStream in;
+        private final int channels;
+        private final int samplesPerBlock;
+        private final byte[] block;
+        private final byte[] pcm;
+        private final short[] samples;
+        private long dataLeft;
+        private long framesLeft;
+        private int pcmPosition;
+        private int pcmLength;
+
+        Decoder(InputStream in, int channels, int blockAlign, int samplesPerBlock, long dataSize, long frames) {
+            this.in = in;
+            this.channels = channels;
+            this.samplesPerBlock = samplesPerBlock;
+            this.block = new byte[blockAlign];
+            this.pcm = new byte[samplesPerBlock * channels * 2];
+            this.samples = new short[samplesPerBlock * channels];
+            this.dataLeft = dataSize;
+            this.framesLeft = frames;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pcmPosition >= pcmLength && !decodeBlock()) return -1;
+            return pcm[pcmPosition++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pcmPosition >= pcmLength && !decodeBlock()) return -1;
+            int n = Math.min(len, pcmLength - pcmPosition);
+            System.arraycopy(pcm, pcmPosition, b, off, n);
+            pcmPosition += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return pcmLength - pcmPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean decodeBlock() throws IOException {
+            if (framesLeft == 0) return false;
+            int size = (int) Math.min(block.length, dataLeft);
+            int read = 0;
+            while (read < size) {
+                int n = in.read(block, read, size - read);
+                if (n < 0) break;
+                read += n;
+            }
+            dataLeft -= read;
+            int header = 4 * channels;
+            if (read <= header) return false;
+
+            int frames = Math.min(samplesPerBlock, (read - header) * 2 / channels + 1);
+            if (framesLeft > 0) frames = (int) Math.min(frames, framesLeft);
+
+            for (int c = 0; c < channels; c++) {
+                int predictor = (short) ((block[4 * c] & 0xFF) | (block[4 * c + 1] << 8));
+                int index = Math.min(88, block[4 * c + 2] & 0xFF);
+                samples[c] = (short) predictor;
+
+                // Channels are interleaved in groups of 4 bytes (8 samples)
+                int frame = 1;
+                for (int group = 0; frame < frames; group++, frame += 8) {
+                    int offset = header + group * 4 * channels + c * 4;
+                    for (int k = 0; k < 8 && frame + k < frames; k++) {
+                        int data = block[offset + k / 2] & 0xFF;
+                        int nibble = (k & 1) == 0 ? data & 0x0F : data >> 4;
+
+                        int step = STEP_TABLE[index];
+                        int delta = step >> 3;
+                        if ((nibble & 4) != 0) delta += step;
+                        if ((nibble & 2) != 0) delta += step >> 1;
+                        if ((nibble & 1) != 0) delta += step >> 2;
+                        predictor += (nibble & 8) != 0 ? -delta : delta;
+                        predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+                        index = Math.max(0, Math.min(88, index + INDEX_TABLE[nibble & 7]));
+
+                        samples[(frame + k) * channels + c] = (short) predictor;
+                    }
+                }
+            }
+
+            int count = frames * channels;
+            for (int i = 0, b = 0; i < count; i++, b += 2) {
+                pcm[b] = (byte) samples[i];
+                pcm[b + 1] = (byte) (samples[i] >> 8);
+            }
+            pcmPosition = 0;
+            pcmLength = count * 2;
+            if (framesLeft > 0) framesLeft -= frames;
+            return true;
+        }
+    }
+
+    private static boolean tag(byte[] bytes, int offset, String tag) {
+        for (int i = 0; i < 4; i++) {
+            if (bytes[offset + i] != tag.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int u16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long u32(byte[] b, int offset) {
+        return (u16(b, offset) | (long) u16(b, offset + 2) << 16);
+    }
+
+    private static boolean readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n < 0) return false;
+            read += n;
+        }
+        return true;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long n = in.skip(count);
+            if (n <= 0) {
+                if (in.read() < 0) throw new IOException("Truncated WAV chunk");
+                n = 1;
+            }
+            count -= n;
+        }
+    }
+}
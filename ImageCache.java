@@ -0,0 +1,115 @@
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU image cache bounded by an estimated pixel memory budget.
+ * Least recently used images are dropped once the budget is exceeded;
+ * images still shown on screen stay alive through their labels.
+ * Access is synchronized, since images for a new scale bucket are loaded off the EDT.
+ * The map is kept private so every change goes through the byte accounting.
+ *
+ * Entries are {@link CharacterSprites.Sprite}s, so a trimmed image's slot offset is
+ * stored and evicted together with it; plain images are stored at offset 0. An image
+ * stored under several keys, such as a default sprite standing in for a missing mood or
+ * a layered body shared by every expression, counts against the budget once.
+ */
+public class ImageCache {
+
+    private final Map<String, CharacterSprites.Sprite> images = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Image, Integer> references = new IdentityHashMap<>();   // Keys per distinct image
+    private final long budgetBytes;
+    private long usedBytes;
+
+    public ImageCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public synchronized Image get(String key) {
+        CharacterSprites.Sprite sprite = images.get(key);
+        return sprite != null ? sprite.image : null;
+    }
+
+    public synchronized CharacterSprites.Sprite getSprite(String key) {
+        return images.get(key);
+    }
+
+    public synchronized boolean containsKey(String key) {
+        return images.containsKey(key);
+    }
+
+    public synchronized Image put(String key, Image value) {
+        CharacterSprites.Sprite previous = putSprite(key, new CharacterSprites.Sprite(value, 0, 0));
+        return previous != null ? previous.image : null;
+    }
+
+    public synchronized CharacterSprites.Sprite putSprite(String key, CharacterSprites.Sprite sprite) {
+        CharacterSprites.Sprite previous = images.put(key, sprite);
+        retain(sprite);
+        if (previous != null) release(previous);
+        trimToBudget(key);
+        return previous;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    private void trimToBudget(String keep) {
+        Iterator<Map.Entry<String, CharacterSprites.Sprite>> it = images.entrySet().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<String, CharacterSprites.Sprite> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            it.remove();
+            release(eldest.getValue());
+        }
+    }
+
+    private void retain(CharacterSprites.Sprite sprite) {
+        retain(sprite.image);
+        if (sprite.overlay != null) retain(sprite.overlay);
+    }
+
+    private void release(CharacterSprites.Sprite sprite) {
+        release(sprite.image);
+        if (sprite.overlay != null) release(sprite.overlay);
+    }
+
+    private void retain(Image image) {
+        if (references.merge(image, 1, Integer::sum) == 1) {
+            usedBytes += estimateBytes(image);
+        }
+    }
+
+    private void release(Image image) {
+        Integer count = references.get(image);
+        if (count == null) return;
+        if (count > 1) {
+            references.put(image, count - 1);
+        } else {
+            references.remove(image);
+            usedBytes -= estimateBytes(image);
+        }
+    }
+
+    /**
+     * Approximates decoded size as 4 bytes per pixel. Sub-image views are counted
+     * by their own area even though they share their parent's raster.
+     */
+    static long estimateBytes(Image image) {
+        if (image instanceof BufferedImage) {
+            BufferedImage buffered = (BufferedImage) image;
+            return (long) buffered.getWidth() * buffered.getHeight() * 4;
+        }
+        int w = image.getWidth(null);
+        int h = image.getHeight(null);
+        return w > 0 && h > 0 ? (long) w * h * 4 : 0;
+    }
+}
@@ -0,0 +1,79 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Image helpers shared by the background, sprite and transition code.
+ */
+public final class ImageUtils {
+
+    private ImageUtils() {}
+
+    /**
+     * Scales a fully loaded image into a new BufferedImage of the given type.
+     * Large downscales are done in halving steps so bilinear filtering keeps
+     * the quality close to SCALE_SMOOTH without its cost.
+     */
+    public static BufferedImage scale(Image source, int width, int height, int imageType) {
+        int srcW = source.getWidth(null);
+        int srcH = source.getHeight(null);
+        if (srcW <= 0 || srcH <= 0) return null;
+
+        Image current = source;
+        int curW = srcW;
+        int curH = srcH;
+
+        while (curW / 2 >= width && curH / 2 >= height) {
+            curW /= 2;
+            curH /= 2;
+            current = draw(current, curW, curH, imageType);
+        }
+        return draw(current, width, height, imageType);
+    }
+
+    /**
+     * Draws an image that was pre-scaled by {@code imageScale} at pixel offset (x, y)
+     * of that scale. When the graphics transform already scales by the same factor the
+     * image is blitted 1:1 in device space; otherwise it is resampled to fit.
+     */
+    public static void drawAtScale(Graphics2D g2d, Image image, int x, int y, float imageScale) {
+        AffineTransform transform = g2d.getTransform();
+        boolean matches = transform.getShearX() == 0 && transform.getShearY() == 0
+                       && Math.abs(transform.getScaleX() - imageScale) < 1e-4
+                       && Math.abs(transform.getScaleY() - imageScale) < 1e-4;
+        if (matches) {
+            if (imageScale == 1f) {
+                g2d.drawImage(image, x, y, null);
+                return;
+            }
+            g2d.setTransform(AffineTransform.getTranslateInstance(
+                Math.round(transform.getTranslateX()), Math.round(transform.getTranslateY())));
+            g2d.drawImage(image, x, y, null);
+            g2d.setTransform(transform);
+            return;
+        }
+
+        AffineTransform placement = AffineTransform.getScaleInstance(1.0 / imageScale, 1.0 / imageScale);
+        placement.translate(x, y);
+        Object previous = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, placement, null);
+        if (previous != null) g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, previous);
+    }
+
+    private static BufferedImage draw(Image source, int width, int height, int imageType) {
+        BufferedImage result = new BufferedImage(width, height, imageType);
+        Graphics2D g2d = result.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (imageType != BufferedImage.TYPE_INT_RGB && imageType != BufferedImage.TYPE_BYTE_GRAY) {
+                g2d.setComposite(AlphaComposite.Src);
+            }
+            g2d.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Offline tool that writes power-of-two mip levels for every image in a directory tree.
+ *
+ * Usage: {@code java MipmapBuilder [directory] [minSize]}
+ *
+ * Each level halves the previous one, down to the first level whose longer side is
+ * below minSize (default 128). Levels keep the source format, are named as described
+ * in {@link Mipmaps}, and are only rewritten when the source is newer; an image whose
+ * levels are all up to date isn't decoded at all. Hidden entries are skipped, like
+ * {@link AssetPackBuilder} does. Run it before
+ * {@link AssetPackBuilder} so the levels end up in the pack.
+ */
+public class MipmapBuilder {
+
+    private static final int DEFAULT_MIN_SIZE = 128;
+
+    public static void main(String[] args) {
+        File directory = new File(args.length > 0 ? args[0] : ".");
+        int minSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MIN_SIZE;
+
+        if (!directory.isDirectory()) {
+            System.err.println("[Mipmap] Not a directory: " + directory);
+            return;
+        }
+
+        List<File> sources = new ArrayList<>();
+        collect(directory, sources);
+
+        AtomicInteger written = new AtomicInteger();
+        long start = System.nanoTime();
+        sources.parallelStream().forEach(file -> {
+            try {
+                written.addAndGet(build(file, minSize));
+            } catch (IOException e) {
+                System.err.println("[Mipmap] Error processing " + file + ": " + e.getMessage());
+            }
+        });
+        System.out.printf("[Mipmap] %d images, %d levels written in %d ms%n",
+            sources.size(), written.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void collect(File directory, List<File> sources) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().startsWith(".")) continue;
+            if (file.isDirectory()) {
+                collect(file, sources);
+            } else if (formatOf(file) != null && !Mipmaps.isLevel(file.getName())) {
+                sources.add(file);
+            }
+        }
+    }
+
+    /**
+     * Writes the levels of one image and returns how many were (re)written.
+     */
+    static int build(File source, int minSize) throws IOException {
+        Dimension size = readSize(source);
+        if (size != null && upToDate(source, size, minSize)) return 0;
+
+        String format = formatOf(source);
+        BufferedImage current = ImageIO.read(source);
+        if (current == null) return 0;
+        int count = 0;
+
+        for (int level = 1; ; level++) {
+            File target = new File(Mipmaps.levelName(source.getPath(), level));
+            int w = current.getWidth() / 2;
+            int h = current.getHeight() / 2;
+            if (w <= 0 || h <= 0 || Math.max(w, h) < minSize) break;
+
+            // Halve the previous level so every step is a plain 2x bilinear reduction
+            int type = current.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            current = ImageUtils.scale(current, w, h, type);
+            if (target.exists() && target.lastModified() >= source.lastModified()) continue;
+
+            if (!ImageIO.write(current, format, target)) {
+                System.err.println("[Mipmap] No writer for " + format + ": " + source);
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * True when every level the source needs exists and isn't older than the source.
+     */
+    private static boolean upToDate(File source, Dimension size, int minSize) {
+        for (int level = 1; ; level++) {
+            int w = size.width >> level;
+            int h = size.height >> level;
+            if (w <= 0 || h <= 0 || Math.max(w, h) < minSize) return true;
+            File target = new File(Mipmaps.levelName(source.getPath(), level));
+            if (!target.exists() || target.lastModified() < source.lastModified()) return false;
+        }
+    }
+
+    // Reads only the header, so up-to-date images are never decoded
+    private static Dimension readSize(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = Mipmaps.readerFor(input);
+            if (reader == null) return null;
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String formatOf(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".png")) return "png";
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) return "jpg";
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Picks the cheapest decode of an image for a target size.
+ *
+ * {@link MipmapBuilder} writes power-of-two levels next to each source image:
+ * {@code Background.jpg} gets {@code Background.mip1.jpg} (half size),
+ * {@code Background.mip2.jpg} (quarter size) and so on. {@link #read} decodes the
+ * smallest level that is still at least the target size, so decode time and peak
+ * memory follow the display size rather than the source size.
+ *
+ * Images without levels are decoded with ImageIO source subsampling, keeping at least
+ * twice the target size so the final filtered downscale still smooths the result.
+ *
+ * Names are resolved through {@link Assets}, so levels can live in a pack.
+ */
+public final class Mipmaps {
+
+    static final String LEVEL_MARKER = ".mip";
+
+    private Mipmaps() {}
+
+    /**
+     * File name of mip level {@code level} (1 = half size) for a source image.
+     */
+    static String levelName(String filename, int level) {
+        int dot = filename.lastIndexOf('.');
+        int slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf(File.separatorChar));
+        if (dot <= slash) return filename + LEVEL_MARKER + level;
+        return filename.substring(0, dot) + LEVEL_MARKER + level + filename.substring(dot);
+    }
+
+    static boolean isLevel(String filename) {
+        return filename.contains(LEVEL_MARKER);
+    }
+
+    /**
+     * Reads an image's dimensions from its header without decoding the pixels.
+     * Returns null when the asset doesn't exist or isn't an image.
+     */
+    public static Dimension readSize(String name) throws IOException {
+        InputStream stream = Assets.getInstance().openStream(name);
+        if (stream == null) return null;
+        try (ImageInputStream input = new MemoryCacheImageInputStream(stream)) {
+            ImageReader reader = readerFor(input);
+            if (reader == null) return null;
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Decodes the image at the smallest available resolution that still covers
+     * minWidth x minHeight. Returns null when the asset can't be read.
+     */
+    public static BufferedImage read(String name, int minWidth, int minHeight) throws IOException {
+        Dimension size = readSize(name);
+        if (size == null) return null;
+
+        // Highest level that is still large enough
+        int level = 0;
+        while ((size.width >> (level + 1)) >= minWidth && (size.height >> (level + 1)) >= minHeight
+               && (size.width >> (level + 1)) > 0 && (size.height >> (level + 1)) > 0) {
+            level++;
+        }
+        Assets assets = Assets.getInstance();
+        for (int l = level; l > 0; l--) {
+            String levelName = levelName(name, l);
+            if (assets.exists(levelName)) {
+                BufferedImage image = decode(levelName, 1);
+                if (image != null) return image;
+            }
+        }
+
+        // No prebuilt level: subsample while decoding, keeping a 2x margin for filtering
+        int subsampling = 1;
+        while (size.width / (subsampling * 4) >= minWidth && size.height / (subsampling * 4) >= minHeight) {
+            subsampling *= 2;
+        }
+        return decode(name, subsampling);
+    }
+
+    // In-memory image stream, so ImageIO doesn't spill to a temporary cache file
+    private static BufferedImage decode(String name, int subsampling) throws IOException {
+        InputStream stream = Assets.getInstance().openStream(name);
+        if (stream == null) return null;
+        try (ImageInputStream input = new MemoryCacheImageInputStream(stream)) {
+            ImageReader reader = readerFor(input);
+            if (reader == null) return null;
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    static ImageReader readerFor(ImageInputStream input) {
+        if (input == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        return readers.hasNext() ? readers.next() : null;
+    }
+}
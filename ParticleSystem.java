@@ -0,0 +1,310 @@
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+
+/**
+ * Weather and ambient particles (rain, snow, sakura) for the screen effect layer.
+ * Particle state lives in parallel primitive arrays and emitters are pooled, so the
+ * simulation doesn't allocate while running. All particles are drawn in one paint pass.
+ */
+public class ParticleSystem {
+
+    private static final int MAX_PARTICLES = 4096;
+    private static final int PETAL_ROTATIONS = 16;
+
+    public enum Kind {
+        // rate/s, speed px/s (as a fraction of screen height), size px
+        RAIN(400f, 1.6f, 18f),
+        SNOW(80f, 0.12f, 6f),
+        SAKURA(25f, 0.10f, 14f);
+
+        final float defaultRate;
+        final float fallSpeed;
+        final float size;
+
+        Kind(float defaultRate, float fallSpeed, float size) {
+            this.defaultRate = defaultRate;
+            this.fallSpeed = fallSpeed;
+            this.size = size;
+        }
+
+        public static Kind parse(String name) {
+            if (name == null) return null;
+            for (Kind kind : values()) {
+                if (kind.name().equalsIgnoreCase(name.trim())) return kind;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Spawns particles of one kind at a steady rate until released.
+     */
+    private static final class Emitter {
+        Kind kind;
+        float rate;
+        float spawnBudget;   // Fractional particles carried between frames
+    }
+
+    private final int width;
+    private final int height;
+
+    // Struct-of-arrays particle state
+    private final float[] px = new float[MAX_PARTICLES];
+    private final float[] py = new float[MAX_PARTICLES];
+    private final float[] vx = new float[MAX_PARTICLES];
+    private final float[] vy = new float[MAX_PARTICLES];
+    private final float[] size = new float[MAX_PARTICLES];
+    private final float[] phase = new float[MAX_PARTICLES];
+    private final byte[] kind = new byte[MAX_PARTICLES];
+    private int count;
+
+    private final Emitter[] emitters = new Emitter[Kind.values().length];
+    private int emitterCount;
+    private final ArrayDeque<Emitter> emitterPool = new ArrayDeque<>();
+
+    // Pre-rendered sprites so painting is a plain blit per particle
+    private final BufferedImage rainSprite;
+    private final BufferedImage snowSprite;
+    private final BufferedImage[] petalSprites = new BufferedImage[PETAL_ROTATIONS];
+    private static final Color RAIN_COLOR = new Color(200, 210, 255, 140);
+
+    private int seed = 0x2545F491;
+
+    public ParticleSystem(int width, int height) {
+        this.width = width;
+        this.height = height;
+        rainSprite = renderRainSprite(Kind.RAIN.fallSpeed * height * 0.02f);
+        snowSprite = renderSnowSprite((int) Kind.SNOW.size);
+        for (int i = 0; i < PETAL_ROTATIONS; i++) {
+            petalSprites[i] = renderPetalSprite((int) Kind.SAKURA.size, Math.PI * 2 * i / PETAL_ROTATIONS);
+        }
+    }
+
+    /**
+     * Starts (or retunes) the emitter for the given kind. Rates <= 0 use the kind's default.
+     */
+    public void startEmitter(Kind type, float rate) {
+        Emitter emitter = findEmitter(type);
+        if (emitter == null) {
+            emitter = emitterPool.isEmpty() ? new Emitter() : emitterPool.pop();
+            emitter.kind = type;
+            emitter.spawnBudget = 0f;
+            emitters[emitterCount++] = emitter;
+        }
+        emitter.rate = rate > 0 ? rate : type.defaultRate;
+    }
+
+    /**
+     * Stops spawning; particles already on screen keep falling until they leave it.
+     */
+    public void stopEmitter(Kind type) {
+        for (int i = 0; i < emitterCount; i++) {
+            if (emitters[i].kind == type) {
+                releaseEmitter(i);
+                return;
+            }
+        }
+    }
+
+    public void stopAll() {
+        while (emitterCount > 0) {
+            releaseEmitter(emitterCount - 1);
+        }
+    }
+
+    public void clear() {
+        stopAll();
+        count = 0;
+    }
+
+    /**
+     * True while any emitter runs or particles remain on screen.
+     */
+    public boolean isActive() {
+        return emitterCount > 0 || count > 0;
+    }
+
+    public void update(float dt) {
+        for (int e = 0; e < emitterCount; e++) {
+            Emitter emitter = emitters[e];
+            emitter.spawnBudget += emitter.rate * dt;
+            while (emitter.spawnBudget >= 1f && count < MAX_PARTICLES) {
+                spawn(emitter.kind);
+                emitter.spawnBudget -= 1f;
+            }
+            if (count == MAX_PARTICLES) emitter.spawnBudget = 0f;
+        }
+
+        int i = 0;
+        while (i < count) {
+            phase[i] += dt;
+            float sway = 0f;
+            if (kind[i] != (byte) Kind.RAIN.ordinal()) {
+                // Snow and petals drift sideways as they fall
+                sway = (float) Math.sin(phase[i] * 1.7f) * size[i] * 2f;
+            }
+            px[i] += (vx[i] + sway) * dt;
+            py[i] += vy[i] * dt;
+
+            if (py[i] > height + 32 || px[i] < -64 || px[i] > width + height * 0.3f + 64) {
+                removeAt(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Draws every particle in a single pass, grouped by kind to keep state changes low.
+     */
+    public void paint(Graphics2D g2d) {
+        if (count == 0) return;
+
+        byte rain = (byte) Kind.RAIN.ordinal();
+        byte snow = (byte) Kind.SNOW.ordinal();
+        byte sakura = (byte) Kind.SAKURA.ordinal();
+
+        // Translucent drawLine takes a slow mask-fill path; a pre-rendered streak is a plain blit
+        int streakH = rainSprite.getHeight();
+        for (int i = 0; i < count; i++) {
+            if (kind[i] != rain) continue;
+            g2d.drawImage(rainSprite, (int) px[i], (int) py[i] - streakH, null);
+        }
+
+        int half = snowSprite.getWidth() / 2;
+        for (int i = 0; i < count; i++) {
+            if (kind[i] != snow) continue;
+            g2d.drawImage(snowSprite, (int) px[i] - half, (int) py[i] - half, null);
+        }
+
+        int petalHalf = petalSprites[0].getWidth() / 2;
+        for (int i = 0; i < count; i++) {
+            if (kind[i] != sakura) continue;
+            int frame = ((int) (phase[i] * 4f) & Integer.MAX_VALUE) % PETAL_ROTATIONS;
+            g2d.drawImage(petalSprites[frame], (int) px[i] - petalHalf, (int) py[i] - petalHalf, null);
+        }
+    }
+
+    /**
+     * Stores the screen area covered by live particles in {@code out}, or an empty
+     * rectangle when there are none.
+     */
+    public void getBounds(Rectangle out) {
+        if (count == 0) {
+            out.setBounds(0, 0, 0, 0);
+            return;
+        }
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, px[i]);
+            maxX = Math.max(maxX, px[i]);
+            minY = Math.min(minY, py[i]);
+            maxY = Math.max(maxY, py[i]);
+        }
+        // Pad by the largest sprite; rain streaks extend upwards from the particle
+        int pad = Math.max(rainSprite.getHeight(), petalSprites[0].getWidth());
+        out.setBounds((int) minX - pad, (int) minY - pad,
+                      (int) (maxX - minX) + pad * 2 + 1, (int) (maxY - minY) + pad * 2 + 1);
+    }
+
+    private void spawn(Kind type) {
+        int i = count++;
+        float speed = type.fallSpeed * height;
+        kind[i] = (byte) type.ordinal();
+        phase[i] = nextFloat() * 10f;
+        size[i] = type.size * (0.6f + nextFloat() * 0.6f);
+        py[i] = -nextFloat() * 32f;
+
+        switch (type) {
+            case RAIN:
+                px[i] = nextFloat() * (width + height * 0.25f);
+                vx[i] = -speed * 0.2f;
+                vy[i] = speed * (0.8f + nextFloat() * 0.4f);
+                break;
+            case SAKURA:
+                px[i] = nextFloat() * (width + height * 0.3f);
+                vx[i] = -speed * (0.5f + nextFloat() * 0.5f);
+                vy[i] = speed * (0.7f + nextFloat() * 0.6f);
+                break;
+            default:
+                px[i] = nextFloat() * width;
+                vx[i] = (nextFloat() - 0.5f) * speed * 0.3f;
+                vy[i] = speed * (0.6f + nextFloat() * 0.8f);
+                break;
+        }
+    }
+
+    private void removeAt(int i) {
+        int last = --count;
+        px[i] = px[last];
+        py[i] = py[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        size[i] = size[last];
+        phase[i] = phase[last];
+        kind[i] = kind[last];
+    }
+
+    private Emitter findEmitter(Kind type) {
+        for (int i = 0; i < emitterCount; i++) {
+            if (emitters[i].kind == type) return emitters[i];
+        }
+        return null;
+    }
+
+    private void releaseEmitter(int index) {
+        Emitter emitter = emitters[index];
+        emitters[index] = emitters[--emitterCount];
+        emitters[emitterCount] = null;
+        emitter.kind = null;
+        emitterPool.push(emitter);
+    }
+
+    // Xorshift; cheaper than Math.random() and allocation free
+    private float nextFloat() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return (seed >>> 8) / (float) (1 << 24);
+    }
+
+    /**
+     * Streak matching the rain's fall direction (20% sideways drift), {@code length} px tall.
+     */
+    private static BufferedImage renderRainSprite(float length) {
+        int h = Math.max(2, Math.round(length));
+        int w = Math.max(1, Math.round(length * 0.2f)) + 1;
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(RAIN_COLOR);
+        g2d.drawLine(0, h - 1, w - 1, 0);
+        g2d.dispose();
+        return image;
+    }
+
+    private static BufferedImage renderSnowSprite(int diameter) {
+        BufferedImage image = new BufferedImage(diameter, diameter, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setPaint(new RadialGradientPaint(diameter / 2f, diameter / 2f, diameter / 2f,
+            new float[]{0f, 1f}, new Color[]{new Color(255, 255, 255, 230), new Color(255, 255, 255, 0)}));
+        g2d.fillOval(0, 0, diameter, diameter);
+        g2d.dispose();
+        return image;
+    }
+
+    private static BufferedImage renderPetalSprite(int length, double angle) {
+        BufferedImage image = new BufferedImage(length, length, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.rotate(angle, length / 2.0, length / 2.0);
+        g2d.setColor(new Color(255, 183, 197, 220));
+        g2d.fill(new Ellipse2D.Float(length * 0.15f, length * 0.3f, length * 0.7f, length * 0.4f));
+        g2d.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,78 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded audio in the {@link AudioMixer#FORMAT}, kept in direct buffers outside the
+ * Java heap and bounded by a byte budget with LRU eviction.
+ *
+ * Entries are read-only once stored; callers get their own view, so several voices can
+ * read one entry at different positions. An evicted entry stays valid for whoever still
+ * holds a view, and its memory is released when the last view is collected.
+ */
+public class PcmCache {
+
+    private final long budget;
+    private final Map<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public PcmCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * A fresh little-endian view of the cached PCM, or null on a miss.
+     */
+    public synchronized ByteBuffer get(String name) {
+        ByteBuffer data = entries.get(name);
+        return data != null ? data.duplicate().order(ByteOrder.LITTLE_ENDIAN) : null;
+    }
+
+    /**
+     * Whether an entry of this size is worth allocating; a single entry may use at most
+     * half of the budget, so one long track can't flush everything else.
+     */
+    public boolean fits(long size) {
+        return size > 0 && size <= budget / 2;
+    }
+
+    /**
+     * Allocates an off-heap buffer for PCM about to be decoded.
+     */
+    public static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Stores fully decoded PCM (position 0 to limit), evicting the least recently used
+     * entries to stay within the budget.
+     */
+    public synchronized void put(String name, ByteBuffer data) {
+        if (!fits(data.limit())) return;
+        ByteBuffer stored = data.duplicate();
+        stored.position(0);
+        stored = stored.asReadOnlyBuffer();
+
+        ByteBuffer previous = entries.put(name, stored);
+        if (previous != null) bytes -= previous.limit();
+        bytes += stored.limit();
+
+        Iterator<Map.Entry<String, ByteBuffer>> eldest = entries.entrySet().iterator();
+        while (bytes > budget && entries.size() > 1) {
+            ByteBuffer evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= evicted.limit();
+        }
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+}
@@ -0,0 +1,95 @@
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+
+/**
+ * Debug overlay (toggled with F3) that outlines the regions repainted in the last
+ * frame and shows how many pixels they covered, in total and per layer.
+ * Its own repaints are excluded from the counts.
+ */
+public class RepaintOverlay extends JComponent implements DirtyRegionManager.RepaintListener {
+
+    private static final Color OUTLINE_COLOR = new Color(0, 255, 0, 180);
+    private static final Color PANEL_COLOR = new Color(0, 0, 0, 160);
+    private static final Font FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final int PANEL_WIDTH = 360;
+    private static final int LINE_HEIGHT = 18;
+
+    private final long screenPixels;
+    private final List<Rectangle> regions = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>();
+
+    public RepaintOverlay(int width, int height) {
+        this.screenPixels = (long) width * height;
+        setBounds(0, 0, width, height);
+        setOpaque(false);
+        setVisible(false);
+    }
+
+    @Override
+    public void onRepaint(List<Rectangle> frameRegions, Map<Integer, Rectangle> layers, long pixels) {
+        if (!isVisible()) return;
+
+        repaintOutlines();
+        regions.clear();
+        regions.addAll(frameRegions);
+        repaintOutlines();
+
+        int oldPanelHeight = panelHeight();
+        lines.clear();
+        lines.add(String.format("repainted %,d px (%.1f%%)", pixels, pixels * 100.0 / screenPixels));
+        lines.add(regions.size() + (regions.size() == 1 ? " region" : " regions"));
+        for (Map.Entry<Integer, Rectangle> entry : layers.entrySet()) {
+            Rectangle r = entry.getValue();
+            String layer = entry.getKey() == Integer.MIN_VALUE ? "pane" : "L" + entry.getKey();
+            lines.add(String.format("%-6s %,10d px", layer, (long) r.width * r.height));
+        }
+        repaint(0, 0, PANEL_WIDTH, Math.max(oldPanelHeight, panelHeight()));
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (!visible) regions.clear();
+        super.setVisible(visible);
+    }
+
+    // Only the outline strips need repainting, not the areas they enclose
+    private void repaintOutlines() {
+        for (Rectangle r : regions) {
+            repaint(r.x, r.y, r.width, 2);
+            repaint(r.x, r.y + r.height - 2, r.width, 2);
+            repaint(r.x, r.y, 2, r.height);
+            repaint(r.x + r.width - 2, r.y, 2, r.height);
+        }
+    }
+
+    private int panelHeight() {
+        return Math.max(2, lines.size()) * LINE_HEIGHT + 12;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            g2d.setColor(OUTLINE_COLOR);
+            for (Rectangle r : regions) {
+                g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                g2d.drawRect(r.x + 1, r.y + 1, r.width - 3, r.height - 3);
+            }
+
+            g2d.setColor(PANEL_COLOR);
+            g2d.fillRect(0, 0, PANEL_WIDTH, panelHeight());
+            g2d.setFont(FONT);
+            g2d.setColor(Color.WHITE);
+            int y = LINE_HEIGHT;
+            for (String line : lines) {
+                g2d.drawString(line, 8, y);
+                y += LINE_HEIGHT;
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+}
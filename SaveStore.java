@@ -0,0 +1,226 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Save slots in one file with a fixed-size index up front and a record per slot.
+ *
+ * Layout: a 16-byte header (magic, version, slot count, index entry size), then one
+ * {@link #ENTRY_BYTES} index entry per slot holding the record's offset, length,
+ * capacity, CRC-32, save time and a short preview text, then the records.
+ *
+ * The index is read once with a single positional read and kept in memory, so the
+ * save/load screen gets every preview without touching the payloads. Saving writes
+ * only the slot's record and its index entry with positional writes. A record is
+ * rewritten in place while it fits its capacity, which is rounded up to
+ * {@link #RECORD_ALIGN}; otherwise it moves to the end of the file. A record whose CRC
+ * doesn't match, e.g. after a crash halfway through a save, is reported as corrupted
+ * instead of being loaded.
+ *
+ * Slots are numbered from 1, like on the save/load screen.
+ */
+public class SaveStore {
+
+    static final int SLOT_COUNT = 32;
+    private static final int MAGIC = 0x595A5356;   // "YZSV"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 256;
+    private static final int ENTRY_FIXED_BYTES = 30;   // offset, length, capacity, crc, savedAt, preview length
+    private static final int PREVIEW_BYTES = ENTRY_BYTES - ENTRY_FIXED_BYTES;
+    private static final long RECORDS_START = HEADER_BYTES + (long) SLOT_COUNT * ENTRY_BYTES;
+    private static final int RECORD_ALIGN = 4096;
+
+    /**
+     * One slot's index entry; an empty slot has length 0.
+     */
+    private static final class Entry {
+        long offset;
+        int length;
+        int capacity;
+        int crc;
+        long savedAt;
+        String preview = "";
+    }
+
+    private final File file;
+    private Entry[] index;   // Loaded on first use
+    private boolean foreign;   // The file exists but isn't a save store; never written over
+
+    public SaveStore(File file) {
+        this.file = file;
+    }
+
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * The preview text stored with a slot, or null when the slot is empty.
+     */
+    public synchronized String getPreview(int slot) {
+        Entry entry = entry(slot);
+        return entry.length == 0 ? null : entry.preview;
+    }
+
+    /**
+     * When the slot was last saved, in epoch milliseconds, or 0 when it is empty.
+     */
+    public synchronized long getSavedAt(int slot) {
+        return entry(slot).savedAt;
+    }
+
+    /**
+     * Reads a slot's payload, or returns null when the slot is empty.
+     */
+    public synchronized String read(int slot) throws IOException {
+        Entry entry = entry(slot);
+        if (entry.length == 0) return null;
+
+        ByteBuffer data = ByteBuffer.allocate(entry.length);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            readFully(channel, data, entry.offset);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.array());
+        if ((int) crc.getValue() != entry.crc) {
+            throw new IOException("Slot " + slot + " is corrupted");
+        }
+        return new String(data.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores a payload with its preview text in a slot, replacing what was there.
+     */
+    public synchronized void write(int slot, String payload, String preview) throws IOException {
+        Entry entry = entry(slot);
+        if (foreign) throw new IOException("Unknown save file format: " + file);
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            if (channel.size() < RECORDS_START) {
+                writeFully(channel, encodeHeader(), 0);
+            }
+
+            Entry updated = new Entry();
+            if (data.length <= entry.capacity) {
+                updated.offset = entry.offset;
+                updated.capacity = entry.capacity;
+            } else {
+                updated.offset = Math.max(RECORDS_START, channel.size());
+                updated.capacity = (data.length + RECORD_ALIGN - 1) / RECORD_ALIGN * RECORD_ALIGN;
+            }
+            updated.length = data.length;
+            updated.crc = (int) crc.getValue();
+            updated.savedAt = System.currentTimeMillis();
+            updated.preview = preview != null ? preview : "";
+
+            // Record first, then the entry that points at it
+            writeFully(channel, ByteBuffer.wrap(data), updated.offset);
+            channel.force(false);
+            writeFully(channel, encodeEntry(updated), entryPosition(slot));
+            channel.force(false);
+            index[slot - 1] = updated;
+        }
+    }
+
+    private Entry entry(int slot) {
+        if (slot < 1 || slot > SLOT_COUNT) {
+            throw new IllegalArgumentException("No save slot " + slot);
+        }
+        if (index == null) index = loadIndex();
+        return index[slot - 1];
+    }
+
+    /**
+     * Reads the header and every index entry in one positional read. A missing or
+     * unreadable file gives an all-empty index.
+     */
+    private Entry[] loadIndex() {
+        Entry[] entries = new Entry[SLOT_COUNT];
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            entries[i] = new Entry();
+        }
+        if (!file.isFile()) return entries;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) RECORDS_START);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            readFully(channel, buffer, 0);
+        } catch (IOException e) {
+            System.err.println("[Save] Error reading save index: " + e.getMessage());
+            return entries;
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != SLOT_COUNT || buffer.getInt() != ENTRY_BYTES) {
+            System.err.println("[Save] Unknown save file format: " + file);
+            foreign = true;
+            return entries;
+        }
+
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            buffer.position(HEADER_BYTES + i * ENTRY_BYTES);
+            Entry entry = entries[i];
+            entry.offset = buffer.getLong();
+            entry.length = buffer.getInt();
+            entry.capacity = buffer.getInt();
+            entry.crc = buffer.getInt();
+            entry.savedAt = buffer.getLong();
+            int previewLength = Math.min(buffer.getShort() & 0xFFFF, PREVIEW_BYTES);
+            byte[] preview = new byte[previewLength];
+            buffer.get(preview);
+            entry.preview = new String(preview, StandardCharsets.UTF_8);
+        }
+        return entries;
+    }
+
+    private static ByteBuffer encodeHeader() {
+        ByteBuffer header = ByteBuffer.allocate((int) RECORDS_START);   // Index entries start zeroed (empty)
+        header.putInt(MAGIC).putInt(VERSION).putInt(SLOT_COUNT).putInt(ENTRY_BYTES);
+        header.rewind();
+        return header;
+    }
+
+    private static ByteBuffer encodeEntry(Entry entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_BYTES);
+        buffer.putLong(entry.offset)
+            .putInt(entry.length)
+            .putInt(entry.capacity)
+            .putInt(entry.crc)
+            .putLong(entry.savedAt);
+
+        // Truncate to whole characters that fit the entry
+        ByteBuffer preview = ByteBuffer.allocate(PREVIEW_BYTES);
+        StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(entry.preview), preview, true);
+        preview.flip();
+        buffer.putShort((short) preview.remaining()).put(preview);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private static long entryPosition(int slot) {
+        return HEADER_BYTES + (long) (slot - 1) * ENTRY_BYTES;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Save file is truncated");
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import javax.swing.*;
+
+/**
+ * Window content that fits the scene, laid out at a fixed logical design resolution,
+ * into a resizable window with letterboxing.
+ *
+ * When the window matches the design size the scene paints directly. Otherwise dirty
+ * regions are rendered into a scene buffer at the current scale bucket (see
+ * {@link #BUCKETS}) and the buffer is drawn scaled to the window; a glass pane maps
+ * mouse events back into scene space and forwards them to the component under the pointer.
+ *
+ * The bucket only changes once a resize has settled, so intermediate sizes during a
+ * drag just stretch the existing buffer. Listeners are then told to rescale their
+ * images for the new bucket, which they can share across every window size within it.
+ */
+public class ScaledViewport extends JPanel implements DirtyRegionManager.FrameRenderer {
+
+    // Render scales images are prepared for; a window uses the smallest one that covers it
+    static final float[] BUCKETS = {0.5f, 0.625f, 0.75f, 0.875f, 1f, 1.25f, 1.5f, 2f};
+    private static final int SETTLE_DELAY_MS = 250;
+
+    public interface ScaleListener {
+        void onRenderScaleChanged(float renderScale);
+    }
+
+    private final JFrame frame;
+    private final JComponent scene;
+    private final DirtyRegionManager repaintManager;
+    private final int logicalWidth;
+    private final int logicalHeight;
+    private final Timer settleTimer;
+    private final InputMapper inputMapper = new InputMapper();
+    private ScaleListener scaleListener;
+
+    private boolean identity = true;      // Window matches the design size
+    private float displayScale = 1f;
+    private int displayX;
+    private int displayY;
+    private int displayWidth;
+    private int displayHeight;
+
+    private float renderScale = 1f;       // Current bucket
+    private BufferedImage sceneBuffer;
+
+    public ScaledViewport(JFrame frame, JComponent scene, DirtyRegionManager repaintManager,
+                          int logicalWidth, int logicalHeight) {
+        super(null);
+        this.frame = frame;
+        this.scene = scene;
+        this.repaintManager = repaintManager;
+        this.logicalWidth = logicalWidth;
+        this.logicalHeight = logicalHeight;
+        this.displayWidth = logicalWidth;
+        this.displayHeight = logicalHeight;
+        setBackground(Color.BLACK);
+        scene.setBounds(0, 0, logicalWidth, logicalHeight);
+        add(scene);
+
+        settleTimer = new Timer(SETTLE_DELAY_MS, e -> settle());
+        settleTimer.setRepeats(false);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateGeometry();
+                settleTimer.restart();
+            }
+        });
+        frame.setGlassPane(inputMapper);
+    }
+
+    public void setScaleListener(ScaleListener listener) {
+        this.scaleListener = listener;
+    }
+
+    public float getRenderScale() {
+        return renderScale;
+    }
+
+    /**
+     * Smallest bucket at or above the given scale, so the final blit only ever shrinks.
+     */
+    static float bucketFor(float scale) {
+        for (float bucket : BUCKETS) {
+            if (bucket >= scale - 1e-3f) return bucket;
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    private void updateGeometry() {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) return;
+
+        displayScale = Math.min((float) w / logicalWidth, (float) h / logicalHeight);
+        displayWidth = Math.round(logicalWidth * displayScale);
+        displayHeight = Math.round(logicalHeight * displayScale);
+        displayX = (w - displayWidth) / 2;
+        displayY = (h - displayHeight) / 2;
+
+        identity = displayWidth == logicalWidth && displayHeight == logicalHeight
+                && displayX == 0 && displayY == 0;
+        if (!identity) ensureBuffer();
+        inputMapper.setVisible(!identity);
+        updateRenderer();
+        repaintManager.markCompletelyDirty(scene);
+        repaint();
+    }
+
+    private void settle() {
+        float bucket = identity ? 1f : bucketFor(displayScale);
+        if (bucket == renderScale) return;
+
+        System.out.println("[Display] Render scale " + renderScale + " -> " + bucket
+                           + " for " + getWidth() + "x" + getHeight());
+        renderScale = bucket;
+        sceneBuffer = null;
+        if (!identity) ensureBuffer();
+        repaintManager.markCompletelyDirty(scene);
+        if (scaleListener != null) scaleListener.onRenderScaleChanged(bucket);
+    }
+
+    // Leaves rendering alone while someone else (exclusive fullscreen) owns it
+    private void updateRenderer() {
+        DirtyRegionManager.FrameRenderer current = repaintManager.getFrameRenderer();
+        if (current == null || current == this) {
+            repaintManager.setFrameRenderer(identity ? null : this);
+        }
+    }
+
+    private void ensureBuffer() {
+        int w = Math.max(1, Math.round(logicalWidth * renderScale));
+        int h = Math.max(1, Math.round(logicalHeight * renderScale));
+        if (sceneBuffer != null && sceneBuffer.getWidth() == w && sceneBuffer.getHeight() == h) return;
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        sceneBuffer = gc != null ? gc.createCompatibleImage(w, h)
+                                 : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Renders the dirty scene regions into the scene buffer, then repaints the
+     * matching window areas.
+     */
+    @Override
+    public void renderFrame(List<Rectangle> regions) {
+        if (sceneBuffer == null) return;
+        Graphics2D g2d = sceneBuffer.createGraphics();
+        try {
+            g2d.scale(renderScale, renderScale);
+            g2d.setColor(Color.BLACK);
+            for (Rectangle region : regions) {
+                g2d.setClip(region);
+                g2d.fill(region);
+                scene.paint(g2d);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        for (Rectangle region : regions) {
+            int x = displayX + (int) Math.floor(region.x * displayScale);
+            int y = displayY + (int) Math.floor(region.y * displayScale);
+            int w = (int) Math.ceil(region.width * displayScale) + 2;
+            int h = (int) Math.ceil(region.height * displayScale) + 2;
+            repaint(x, y, w, h);
+        }
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        if (identity || sceneBuffer == null) {
+            super.paint(g);
+            return;
+        }
+        int w = getWidth();
+        int h = getHeight();
+        g.setColor(Color.BLACK);
+        if (displayX > 0) {
+            g.fillRect(0, 0, displayX, h);
+            g.fillRect(displayX + displayWidth, 0, w - displayX - displayWidth, h);
+        }
+        if (displayY > 0) {
+            g.fillRect(0, 0, w, displayY);
+            g.fillRect(0, displayY + displayHeight, w, h - displayY - displayHeight);
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+        if (sceneBuffer.getWidth() != displayWidth || sceneBuffer.getHeight() != displayHeight) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        g2d.drawImage(sceneBuffer, displayX, displayY, displayWidth, displayHeight, null);
+    }
+
+    /**
+     * Glass pane shown while the scene is scaled. It takes the frame's mouse events and
+     * forwards each one, in scene coordinates, to the scene component the user sees under
+     * the pointer. Like Swing's own dispatch, drags and the release go to the component
+     * that got the press, and components are told when the pointer enters or leaves them.
+     */
+    private final class InputMapper extends JComponent {
+        private Component hovered;   // Last component sent MOUSE_ENTERED
+        private Component pressed;   // Gets drags and the release
+        private Component clicked;   // Released over the component it was pressed on
+
+        InputMapper() {
+            enableEvents(AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK
+                         | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+        }
+
+        @Override
+        public void setVisible(boolean visible) {
+            if (!visible) {
+                hovered = null;
+                pressed = null;
+                clicked = null;
+            }
+            super.setVisible(visible);
+        }
+
+        @Override
+        protected void processMouseEvent(MouseEvent e) {
+            forward(e);
+        }
+
+        @Override
+        protected void processMouseMotionEvent(MouseEvent e) {
+            forward(e);
+        }
+
+        @Override
+        protected void processMouseWheelEvent(MouseWheelEvent e) {
+            forward(e);
+        }
+
+        private void forward(MouseEvent e) {
+            Point p = SwingUtilities.convertPoint(this, e.getPoint(), ScaledViewport.this);
+            int x = Math.round((p.x - displayX) / displayScale);
+            int y = Math.round((p.y - displayY) / displayScale);
+            Component under = targetAt(x, y, e instanceof MouseWheelEvent);
+
+            switch (e.getID()) {
+                case MouseEvent.MOUSE_ENTERED:
+                case MouseEvent.MOUSE_MOVED:
+                    hover(under, e, x, y);
+                    if (e.getID() == MouseEvent.MOUSE_MOVED) dispatch(under, e, e.getID(), x, y);
+                    break;
+                case MouseEvent.MOUSE_EXITED:
+                    hover(null, e, x, y);
+                    break;
+                case MouseEvent.MOUSE_PRESSED:
+                    if (pressed == null) pressed = under;
+                    dispatch(pressed, e, e.getID(), x, y);
+                    break;
+                case MouseEvent.MOUSE_DRAGGED:
+                    if (pressed == null) break;
+                    hover(under == pressed ? pressed : null, e, x, y);
+                    dispatch(pressed, e, e.getID(), x, y);
+                    break;
+                case MouseEvent.MOUSE_RELEASED:
+                    dispatch(pressed, e, e.getID(), x, y);
+                    clicked = under == pressed ? pressed : null;
+                    int buttons = MouseEvent.BUTTON1_DOWN_MASK | MouseEvent.BUTTON2_DOWN_MASK | MouseEvent.BUTTON3_DOWN_MASK;
+                    if ((e.getModifiersEx() & buttons) == 0) pressed = null;
+                    hover(under, e, x, y);
+                    break;
+                case MouseEvent.MOUSE_CLICKED:
+                    dispatch(clicked, e, e.getID(), x, y);
+                    break;
+                default:
+                    dispatch(under, e, e.getID(), x, y);
+            }
+            setCursor(hovered != null ? hovered.getCursor() : null);
+        }
+
+        private void hover(Component target, MouseEvent e, int x, int y) {
+            if (target == hovered) return;
+            dispatch(hovered, e, MouseEvent.MOUSE_EXITED, x, y);
+            hovered = target;
+            dispatch(target, e, MouseEvent.MOUSE_ENTERED, x, y);
+        }
+
+        /**
+         * Deepest scene component at a scene point that listens for this kind of event.
+         */
+        private Component targetAt(int x, int y, boolean wheel) {
+            Component c = SwingUtilities.getDeepestComponentAt(scene, x, y);
+            for (; c != null && c != ScaledViewport.this; c = c.getParent()) {
+                if (wheel ? c.getMouseWheelListeners().length > 0
+                          : c.getMouseListeners().length > 0 || c.getMouseMotionListeners().length > 0) {
+                    return c;
+                }
+            }
+            return null;
+        }
+
+        private void dispatch(Component target, MouseEvent e, int id, int x, int y) {
+            if (target == null) return;
+            Point p = SwingUtilities.convertPoint(scene, x, y, target);
+            if (e instanceof MouseWheelEvent) {
+                MouseWheelEvent w = (MouseWheelEvent) e;
+                target.dispatchEvent(new MouseWheelEvent(target, id, w.getWhen(), w.getModifiersEx(), p.x, p.y,
+                    w.getXOnScreen(), w.getYOnScreen(), w.getClickCount(), w.isPopupTrigger(),
+                    w.getScrollType(), w.getScrollAmount(), w.getWheelRotation(), w.getPreciseWheelRotation()));
+            } else {
+                target.dispatchEvent(new MouseEvent(target, id, e.getWhen(), e.getModifiersEx(), p.x, p.y,
+                    e.getXOnScreen(), e.getYOnScreen(), e.getClickCount(), e.isPopupTrigger(), e.getButton()));
+            }
+        }
+    }
+}
@@ -7,24 +7,34 @@ import javax.swing.*;
 public class ScreenEffects {
     
     private final JPanel effectLayer;
-    private Timer effectTimer;
-    private Runnable onEffectComplete;
     
     private float fadeAlpha = 0f;
-    private float fadeTarget = 0f;
-    private float fadeSpeed = 0.05f;
     private Color fadeColor = Color.BLACK;
     
+    // Fades, flashes and shakes run on the shared tween engine; the setters are created once
+    private final TweenEngine tweens = TweenEngine.getInstance();
+    private final Object fadeTag = new Object();
+    private final Object shakeTag = new Object();
+    private final TweenEngine.FloatSetter fadeSetter;
+    private final TweenEngine.FloatSetter shakeSetter;
+    
+    // Weather particles share the effect layer and the engine's frame clock
+    private final ParticleSystem particles;
+    private final TweenEngine.FrameListener particleStep;
+    private final Rectangle particleBounds = new Rectangle();
+    private final Rectangle previousParticleBounds = new Rectangle();
+    
     private Point originalLocation;
     private JComponent shakeTarget;
     private int shakeIntensity;
-    private int shakeDuration;
-    private int shakeElapsed;
     
     public ScreenEffects(int width, int height) {
         effectLayer = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
+                if (particles.isActive()) {
+                    particles.paint((Graphics2D) g);
+                }
                 if (fadeAlpha > 0) {
                     Graphics2D g2d = (Graphics2D) g.create();
                     g2d.setColor(new Color(
@@ -41,6 +51,66 @@ public class ScreenEffects {
         effectLayer.setBounds(0, 0, width, height);
         effectLayer.setOpaque(false);
         effectLayer.setVisible(false);
+        
+        fadeSetter = value -> {
+            if (value == fadeAlpha) return;   // A flash holds its value; no repaint then
+            fadeAlpha = value;
+            effectLayer.repaint();
+        };
+        shakeSetter = progress -> {
+            if (progress >= 1f) {
+                shakeTarget.setLocation(originalLocation);
+                return;
+            }
+            int offsetX = (int)(Math.random() * shakeIntensity * 2) - shakeIntensity;
+            int offsetY = (int)(Math.random() * shakeIntensity * 2) - shakeIntensity;
+            shakeTarget.setLocation(originalLocation.x + offsetX, originalLocation.y + offsetY);
+        };
+        
+        particles = new ParticleSystem(width, height);
+        particleStep = this::stepParticles;
+    }
+    
+    private void stepParticles(float dt) {
+        particles.update(dt);
+        // One repaint per frame covering where particles were and where they are now
+        previousParticleBounds.setBounds(particleBounds);
+        particles.getBounds(particleBounds);
+        if (fadeAlpha <= 0) {
+            Rectangle dirty = previousParticleBounds.isEmpty() ? particleBounds
+                            : particleBounds.isEmpty() ? previousParticleBounds
+                            : previousParticleBounds.union(particleBounds);
+            effectLayer.repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+        }
+        if (!particles.isActive()) {
+            tweens.removeFrameListener(particleStep);
+            updateLayerVisibility();
+        }
+    }
+    
+    /**
+     * Starts rain, snow or sakura at the given rate (particles per second, <= 0 for default).
+     */
+    public void startWeather(ParticleSystem.Kind kind, float rate) {
+        particles.startEmitter(kind, rate);
+        effectLayer.setVisible(true);
+        tweens.addFrameListener(particleStep);
+    }
+    
+    /**
+     * Stops one weather kind, or all of them when kind is null.
+     * Particles already on screen finish falling.
+     */
+    public void stopWeather(ParticleSystem.Kind kind) {
+        if (kind == null) {
+            particles.stopAll();
+        } else {
+            particles.stopEmitter(kind);
+        }
+    }
+    
+    private void updateLayerVisibility() {
+        effectLayer.setVisible(fadeAlpha > 0 || particles.isActive());
     }
     
     public JPanel getEffectLayer() {
@@ -52,14 +122,7 @@ public class ScreenEffects {
     }
     
     public void fadeOut(Color color, int durationMs, Runnable onComplete) {
-        this.fadeColor = color != null ? color : Color.BLACK;
-        this.fadeAlpha = 0f;
-        this.fadeTarget = 1f;
-        this.fadeSpeed = 1f / (durationMs / 16f);
-        this.onEffectComplete = onComplete;
-        
-        effectLayer.setVisible(true);
-        startFadeTimer();
+        startFade(color, 0f, 1f, durationMs, onComplete);
     }
     
     public void fadeIn(int durationMs, Runnable onComplete) {
@@ -67,117 +130,89 @@ public class ScreenEffects {
     }
     
     public void fadeIn(Color color, int durationMs, Runnable onComplete) {
-        this.fadeColor = color != null ? color : Color.BLACK;
-        this.fadeAlpha = 1f;
-        this.fadeTarget = 0f;
-        this.fadeSpeed = 1f / (durationMs / 16f);
-        this.onEffectComplete = onComplete;
+        startFade(color, 1f, 0f, durationMs, onComplete);
+    }
+    
+    private void startFade(Color color, float from, float to, int durationMs, Runnable onComplete) {
+        tweens.cancel(fadeTag);   // The replaced fade's callback doesn't run
         
+        this.fadeColor = color != null ? color : Color.BLACK;
         effectLayer.setVisible(true);
-        startFadeTimer();
+        
+        tweens.timeline(fadeTag)
+              .then(fadeSetter, from, to, durationMs, TweenEngine.Easing.EASE_IN_OUT)
+              .onComplete(() -> {
+                  updateLayerVisibility();
+                  if (onComplete != null) onComplete.run();
+              })
+              .start();
     }
     
-    private void startFadeTimer() {
-        stopEffectTimer();
-        
-        effectTimer = new Timer(16, e -> {
-            if (fadeTarget > fadeAlpha) {
-                fadeAlpha = Math.min(fadeAlpha + fadeSpeed, fadeTarget);
-            } else {
-                fadeAlpha = Math.max(fadeAlpha - fadeSpeed, fadeTarget);
-            }
-            
-            effectLayer.repaint();
-            
-            if (Math.abs(fadeAlpha - fadeTarget) < 0.01f) {
-                fadeAlpha = fadeTarget;
-                effectLayer.repaint();
-                
-                if (fadeAlpha == 0) {
-                    effectLayer.setVisible(false);
-                }
-                
-                stopEffectTimer();
-                if (onEffectComplete != null) {
-                    Runnable callback = onEffectComplete;
-                    onEffectComplete = null;
-                    callback.run();
-                }
-            }
-        });
-        effectTimer.start();
+    /**
+     * Zooms the target around its pivot to the given scale.
+     */
+    public void zoom(SpriteLabel target, float toScale, int durationMs, Runnable onComplete) {
+        tweens.finish(target);
+        tweens.timeline(target)
+              .then(target::setScale, target.getScale(), toScale, durationMs, TweenEngine.Easing.EASE_IN_OUT)
+              .onComplete(onComplete)
+              .start();
     }
     
     public void flash(int durationMs, Runnable onComplete) {
         flash(Color.WHITE, durationMs, onComplete);
     }
     
+    /**
+     * Covers the screen in the color for half the duration, then clears it.
+     */
     public void flash(Color color, int durationMs, Runnable onComplete) {
+        tweens.cancel(fadeTag);
         this.fadeColor = color != null ? color : Color.WHITE;
-        this.fadeAlpha = 1f;
-        this.onEffectComplete = onComplete;
-        
         effectLayer.setVisible(true);
-        effectLayer.repaint();
         
-        stopEffectTimer();
-        effectTimer = new Timer(durationMs / 2, e -> {
-            fadeAlpha = 0f;
-            effectLayer.repaint();
-            effectLayer.setVisible(false);
-            ((Timer)e.getSource()).stop();
-            
-            if (onEffectComplete != null) {
-                Runnable callback = onEffectComplete;
-                onEffectComplete = null;
-                callback.run();
-            }
-        });
-        effectTimer.setRepeats(false);
-        effectTimer.start();
+        tweens.timeline(fadeTag)
+              .then(fadeSetter, 1f, 1f, durationMs / 2, TweenEngine.Easing.LINEAR)
+              .onComplete(() -> {
+                  fadeSetter.set(0f);
+                  updateLayerVisibility();
+                  if (onComplete != null) onComplete.run();
+              })
+              .start();
     }
     
+    /**
+     * Jitters the target around its current location by up to intensity pixels each frame.
+     */
     public void shake(JComponent target, int intensity, int durationMs, Runnable onComplete) {
+        stopShake();
         this.shakeTarget = target;
         this.shakeIntensity = intensity;
-        this.shakeDuration = durationMs;
-        this.shakeElapsed = 0;
         this.originalLocation = target.getLocation();
-        this.onEffectComplete = onComplete;
         
-        stopEffectTimer();
-        effectTimer = new Timer(16, e -> {
-            shakeElapsed += 16;
-            
-            if (shakeElapsed < shakeDuration) {
-                int offsetX = (int)(Math.random() * shakeIntensity * 2) - shakeIntensity;
-                int offsetY = (int)(Math.random() * shakeIntensity * 2) - shakeIntensity;
-                shakeTarget.setLocation(
-                    originalLocation.x + offsetX,
-                    originalLocation.y + offsetY
-                );
-            } else {
-                shakeTarget.setLocation(originalLocation);
-                stopEffectTimer();
-                
-                if (onEffectComplete != null) {
-                    Runnable callback = onEffectComplete;
-                    onEffectComplete = null;
-                    callback.run();
-                }
-            }
-        });
-        effectTimer.start();
+        tweens.timeline(shakeTag)
+              .then(shakeSetter, 0f, 1f, durationMs, TweenEngine.Easing.LINEAR)
+              .onComplete(onComplete)
+              .start();
     }
     
-    public void stopEffectTimer() {
-        if (effectTimer != null && effectTimer.isRunning()) {
-            effectTimer.stop();
-            effectTimer = null;
+    private void stopShake() {
+        if (tweens.isAnimating(shakeTag)) {
+            tweens.cancel(shakeTag);
+            shakeTarget.setLocation(originalLocation);
         }
     }
     
+    /**
+     * Stops a running fade, flash or shake where it is, without its callback.
+     */
+    public void stopEffectTimer() {
+        tweens.cancel(fadeTag);
+        stopShake();
+        updateLayerVisibility();
+    }
+    
     public boolean isEffectRunning() {
-        return effectTimer != null && effectTimer.isRunning();
+        return tweens.isAnimating(fadeTag) || tweens.isAnimating(shakeTag);
     }
 }
\ No newline at end of file
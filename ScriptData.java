@@ -3,20 +3,25 @@
  * Uses proper encapsulation for better maintainability.
  * 
  * Supported command types:
- * - DIALOGUE: Display dialogue (name, mood, text)
- * - BG: Change background image (param = image path)
- * - CHAR: Show/change character sprite (name, mood, param = position: left/center/right)
+ * - DIALOGUE: Display dialogue (name, mood, text, optional voice = voice clip)
+ * - BG: Change background image (param = image path,
+ *       text = optional transition: "mask:rule.png[,ms]" or "crossfade[,ms]")
+ * - CHAR: Show/change character sprite (name, mood, param = position: left/center/right,
+ *         text = optional entrance: slide_in/fade_in/zoom[,ms[,easing]])
  * - CHAR_HIDE: Hide character (name or param = position)
  * - CHOICE: Display choice options (text = JSON array of choices)
  * - GOTO: Jump to label (param = label name)
  * - LABEL: Define jump target (param = label name)
  * - NEXT_CHAPTER: Go to next chapter file (param = filename)
- * - BGM: Play background music (param = audio file, text = "stop" to stop)
+ * - BGM: Play background music (param = audio file, text = optional crossfade ms,
+ *        or "stop[,ms]" to stop, fading out over ms)
  * - SE: Play sound effect (param = audio file)
  * - SET: Set game variable (param = assignment expression)
  * - IF: Conditional execution (param = condition, text = goto label if true)
- * - EFFECT: Screen effect (param = effect type: fade/flash/shake, text = parameters)
+ * - EFFECT: Screen effect (param = effect type: fade/flash/shake/zoom/rain/snow/sakura/weather_stop,
+ *           text = parameters)
  * - WAIT: Pause execution (param = milliseconds)
+ * - VOICE: Voice clip for the next dialogue line (param = audio file)
  */
 public class ScriptData {
     
@@ -36,6 +41,7 @@ public class ScriptData {
     public static final String TYPE_EFFECT = "EFFECT";
     public static final String TYPE_WAIT = "WAIT";
     public static final String TYPE_VAR ="VAR";
+    public static final String TYPE_VOICE = "VOICE";
     
     // Character position constants
     public static final String POS_LEFT = "left";
@@ -48,6 +54,7 @@ public class ScriptData {
     public String mood;   // Character emotion/expression
     public String text;   // Dialogue text or secondary parameter
     public String param;  // Primary parameter (image, label, condition, etc.)
+    public String voice;  // Voice clip of a dialogue line, if any
 
     // Default constructor for Gson
     public ScriptData() {}
@@ -67,6 +74,7 @@ public class ScriptData {
     public String getMood() { return mood; }
     public String getText() { return text; }
     public String getParam() { return param; }
+    public String getVoice() { return voice; }
 
     // Setters
     public void setType(String type) { this.type = type; }
@@ -74,6 +82,7 @@ public class ScriptData {
     public void setMood(String mood) { this.mood = mood; }
     public void setText(String text) { this.text = text; }
     public void setParam(String param) { this.param = param; }
+    public void setVoice(String voice) { this.voice = voice; }
 
     /**
      * Checks if this is a specific command type (case-insensitive).
@@ -118,6 +127,10 @@ public class ScriptData {
         return new ScriptData(TYPE_CHAR, name, mood, null, position);
     }
 
+    public static ScriptData character(String name, String mood, String position, String animation) {
+        return new ScriptData(TYPE_CHAR, name, mood, animation, position);
+    }
+
     public static ScriptData hideCharacter(String nameOrPosition) {
         return new ScriptData(TYPE_CHAR_HIDE, null, null, null, nameOrPosition);
     }
@@ -224,4 +224,8 @@ public class SettingsPanel extends JPanel {
         this.seVolume = volume;
         seVolumeSlider.setValue((int)(volume * 100));
     }
+
+    public void setFullscreenValue(boolean fullscreen) {
+        fullscreenCheck.setSelected(fullscreen);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Fixed pool of sound-effect voices, mixed as one source on the SE channel of the
+ * {@link AudioMixer}.
+ *
+ * At most {@link #VOICES} effects sound at once. Sounds are decoded once into the
+ * off-heap {@link PcmCache} and every voice playing a sound reads the same buffer, so
+ * overlapping plays of one effect don't cut each other off or duplicate the data.
+ *
+ * When all voices are busy, the voice with the lowest priority is stolen, the oldest
+ * among equals; a sound whose priority is below every playing voice is dropped.
+ */
+public class SoundEffectPool implements AudioMixer.Source {
+
+    static final int VOICES = 8;
+    static final int DEFAULT_PRIORITY = 0;
+
+    private static final class Voice {
+        ShortBuffer pcm;    // Interleaved stereo, null when idle
+        String filename;
+        int position;       // In samples
+        long startFrame;    // Mixer frame of the first sample
+        int priority;
+        long startedAt;
+        long requestNanos;  // When playback was requested, for latency metrics
+    }
+
+    private final AudioMixer mixer;
+    private final Voice[] voices = new Voice[VOICES];
+    private final PcmCache cache;
+    private boolean registered;   // Currently a source of the mixer
+
+    public SoundEffectPool(AudioMixer mixer, PcmCache cache) {
+        this.mixer = mixer;
+        this.cache = cache;
+        for (int i = 0; i < VOICES; i++) {
+            voices[i] = new Voice();
+        }
+    }
+
+    /**
+     * Starts a sound on a free or stolen voice at the given mixer frame, or as soon as
+     * possible if that frame was already mixed. A sound that first has to be decoded is
+     * scheduled from the frame at which its PCM is ready instead. requestNanos is when the
+     * caller asked for it, for {@link AudioMetrics}. Returns false if it couldn't be decoded
+     * or every voice is playing something more important.
+     */
+    public boolean play(String filename, int priority, long startFrame, long requestNanos) {
+        ByteBuffer cached = cache.get(filename);
+        ShortBuffer pcm = cached != null ? cached.asShortBuffer() : decode(filename);
+        if (pcm == null) return false;
+        if (cached == null) startFrame = Math.max(startFrame, mixer.scheduleFrame());
+
+        synchronized (this) {
+            Voice voice = pickVoice(priority);
+            if (voice == null) {
+                System.out.println("[Audio] Dropped SE " + filename + ": all voices busy");
+                return false;
+            }
+            voice.pcm = pcm;
+            voice.filename = filename;
+            voice.position = 0;
+            voice.startFrame = startFrame;
+            voice.priority = priority;
+            voice.startedAt = System.nanoTime();
+            voice.requestNanos = requestNanos;
+
+            if (!registered) {
+                registered = mixer.add(AudioMixer.CHANNEL_SE, this);
+                if (!registered) {
+                    voice.pcm = null;   // No output line
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Voice pickVoice(int priority) {
+        Voice victim = null;
+        for (Voice voice : voices) {
+            if (voice.pcm == null) return voice;
+            if (victim == null || voice.priority < victim.priority
+                || (voice.priority == victim.priority && voice.startedAt < victim.startedAt)) {
+                victim = voice;
+            }
+        }
+        return victim.priority <= priority ? victim : null;
+    }
+
+    /**
+     * Sums the active voices; unregisters from the mixer once all of them are done.
+     */
+    @Override
+    public synchronized boolean mixInto(int[] mix, int frames, float gain) {
+        int active = 0;
+        long bufferFrame = mixer.getBufferFrame();
+        for (Voice voice : voices) {
+            if (voice.pcm == null) continue;
+            // A voice scheduled inside this buffer starts at its exact frame
+            long delay = voice.position == 0 ? voice.startFrame - bufferFrame : 0;
+            if (delay >= frames) {
+                active++;
+                continue;
+            }
+            if (voice.position == 0) {
+                mixer.getMetrics().recordFirstSample(AudioMixer.CHANNEL_SE, voice.filename, voice.requestNanos);
+            }
+            int offset = (int) Math.max(0, delay) * 2;
+            ShortBuffer samples = voice.pcm;
+            int count = Math.min(frames * 2 - offset, samples.limit() - voice.position);
+            for (int i = offset, s = voice.position; i < offset + count; i++, s++) {
+                mix[i] += (int) (samples.get(s) * gain);
+            }
+            voice.position += count;
+            if (voice.position >= samples.limit()) {
+                voice.pcm = null;
+            } else {
+                active++;
+            }
+        }
+        mixer.getMetrics().recordSeVoices(active);
+        if (active == 0) registered = false;
+        return active > 0;
+    }
+
+    /**
+     * Decodes a sound that isn't cached yet and caches it.
+     */
+    private ShortBuffer decode(String filename) {
+        ByteBuffer pcm;
+        long start = System.nanoTime();
+        try (AudioInputStream stream = AudioMixer.openConverted(filename)) {
+            if (stream == null) {
+                System.err.println("[Audio] SE file not found: " + filename);
+                return null;
+            }
+            byte[] bytes = stream.readAllBytes();
+            pcm = PcmCache.allocate(bytes.length);
+            pcm.put(bytes).flip();
+            mixer.getMetrics().recordDecode(filename, start, bytes.length);
+        } catch (UnsupportedAudioFileException | IOException e) {
+            System.err.println("[Audio] Error loading SE " + filename + ": " + e.getMessage());
+            return null;
+        }
+        cache.put(filename, pcm);
+        return pcm.asShortBuffer();
+    }
+
+    @Override
+    public synchronized void discarded() {
+        registered = false;
+        close();
+    }
+
+    /**
+     * Silences every voice.
+     */
+    public synchronized void close() {
+        for (Voice voice : voices) {
+            voice.pcm = null;
+        }
+    }
+}
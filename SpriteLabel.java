@@ -0,0 +1,200 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import javax.swing.*;
+
+/**
+ * Image label with animatable opacity and scale.
+ * Used for character sprites and the background so tweens can fade and zoom them.
+ *
+ * Images are set with {@link #setSprite}, which draws a (possibly trimmed and
+ * pre-scaled) image at its offset and repaints only the sprite's bounds instead of the
+ * whole slot. Labels without a sprite paint their regular icon.
+ *
+ * A sprite with an overlay (a layered character's expression) is drawn as two images.
+ * While the label is translucent they are first flattened into one reusable image, so
+ * the body doesn't show through the expression.
+ */
+public class SpriteLabel extends JLabel {
+
+    private float alpha = 1f;
+    private float scale = 1f;
+    private final float anchorX;   // Scale pivot as a fraction of the width
+    private final float anchorY;   // Scale pivot as a fraction of the height
+
+    private CharacterSprites.Sprite sprite;
+    private final Rectangle spriteBounds = new Rectangle();   // Logical bounds
+    private BufferedImage flattened;       // Sprite and overlay in one image, for translucent paints
+    private CharacterSprites.Sprite flattenedSprite;
+    private final Rectangle flattenedBounds = new Rectangle();   // Image pixels
+
+    public SpriteLabel() {
+        this(0.5f, 1f);  // Sprites scale around their feet
+    }
+
+    public SpriteLabel(float anchorX, float anchorY) {
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+    }
+
+    /**
+     * Shows a sprite at its offset inside this label.
+     */
+    public void setSprite(CharacterSprites.Sprite next) {
+        if (next == null) {
+            clearSprite();
+            return;
+        }
+        if (sprite != null && sprite.image == next.image && sprite.x == next.x && sprite.y == next.y
+                && sprite.overlay == next.overlay && sprite.overlayX == next.overlayX && sprite.overlayY == next.overlayY) {
+            if (flattenedSprite == sprite) flattenedSprite = next;   // Same pixels
+            sprite = next;
+            return;
+        }
+        repaintSprite();                       // Old bounds
+        sprite = next;
+        Rectangle bounds = imageBounds(next);
+        // Image pixels to logical coordinates, rounded outwards
+        int x0 = (int) Math.floor(bounds.x / next.scale);
+        int y0 = (int) Math.floor(bounds.y / next.scale);
+        int x1 = (int) Math.ceil((bounds.x + bounds.width) / next.scale);
+        int y1 = (int) Math.ceil((bounds.y + bounds.height) / next.scale);
+        spriteBounds.setBounds(x0, y0, x1 - x0, y1 - y0);
+        repaintSprite();                       // New bounds
+    }
+
+    public void clearSprite() {
+        if (sprite == null) return;
+        repaintSprite();
+        sprite = null;
+        spriteBounds.setBounds(0, 0, 0, 0);
+        flattenedSprite = null;
+    }
+
+    /**
+     * Area covered by the sprite and its overlay, in image pixels.
+     */
+    private static Rectangle imageBounds(CharacterSprites.Sprite sprite) {
+        Rectangle bounds = new Rectangle(sprite.x, sprite.y, sprite.getWidth(), sprite.getHeight());
+        if (sprite.overlay != null) {
+            bounds.add(new Rectangle(sprite.overlayX, sprite.overlayY,
+                                     sprite.overlay.getWidth(null), sprite.overlay.getHeight(null)));
+        }
+        return bounds;
+    }
+
+    public CharacterSprites.Sprite getSprite() {
+        return sprite;
+    }
+
+    private void repaintSprite() {
+        if (sprite == null) return;
+        if (scale == 1f) {
+            repaint(spriteBounds.x, spriteBounds.y, spriteBounds.width, spriteBounds.height);
+        } else {
+            repaint();  // Scaled sprites may cover more than their unscaled bounds
+        }
+    }
+
+    public void setAlpha(float alpha) {
+        float clamped = Math.max(0f, Math.min(1f, alpha));
+        if (clamped != this.alpha) {
+            this.alpha = clamped;
+            if (sprite != null) {
+                repaintSprite();
+            } else {
+                repaint();
+            }
+        }
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    public void setScale(float scale) {
+        if (scale != this.scale) {
+            this.scale = Math.max(0f, scale);
+            repaint();
+        }
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * Tween target for horizontal slides.
+     */
+    public void setX(float x) {
+        setLocation(Math.round(x), getY());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (alpha >= 1f && scale == 1f) {
+            paintContent(g);
+            return;
+        }
+        if (alpha <= 0f || scale <= 0f) return;
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            if (alpha < 1f) {
+                g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+            }
+            if (scale != 1f) {
+                double pivotX = getWidth() * anchorX;
+                double pivotY = getHeight() * anchorY;
+                g2d.translate(pivotX, pivotY);
+                g2d.scale(scale, scale);
+                g2d.translate(-pivotX, -pivotY);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                     RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            }
+            if (alpha < 1f && sprite != null && sprite.overlay != null) {
+                flatten();
+                ImageUtils.drawAtScale(g2d, flattened, flattenedBounds.x, flattenedBounds.y, sprite.scale);
+            } else {
+                paintContent(g2d);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    private void paintContent(Graphics g) {
+        if (sprite != null) {
+            ImageUtils.drawAtScale((Graphics2D) g, sprite.image, sprite.x, sprite.y, sprite.scale);
+            if (sprite.overlay != null) {
+                ImageUtils.drawAtScale((Graphics2D) g, sprite.overlay, sprite.overlayX, sprite.overlayY, sprite.scale);
+            }
+        } else {
+            super.paintComponent(g);
+        }
+    }
+
+    /**
+     * Draws the sprite and its overlay into {@link #flattened}, once per sprite; the
+     * image is reused while it is large enough.
+     */
+    private void flatten() {
+        if (flattenedSprite == sprite) return;
+        flattenedBounds.setBounds(imageBounds(sprite));
+        int w = Math.max(1, flattenedBounds.width);
+        int h = Math.max(1, flattenedBounds.height);
+        if (flattened == null || flattened.getWidth() < w || flattened.getHeight() < h) {
+            flattened = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        Graphics2D g2d = flattened.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, flattened.getWidth(), flattened.getHeight());
+            g2d.setComposite(AlphaComposite.SrcOver);
+            g2d.drawImage(sprite.image, sprite.x - flattenedBounds.x, sprite.y - flattenedBounds.y, null);
+            g2d.drawImage(sprite.overlay, sprite.overlayX - flattenedBounds.x, sprite.overlayY - flattenedBounds.y, null);
+        } finally {
+            g2d.dispose();
+        }
+        flattenedSprite = sprite;
+    }
+}
@@ -1,4 +1,6 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import javax.swing.*;
 
 /**
@@ -17,13 +19,17 @@ public class TitleScreen extends JPanel {
         setLayout(null);
         setBounds(0, 0, width, height);
 
-        // Load and cache background image
-        ImageIcon icon = new ImageIcon(backgroundName);
-        if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-            backgroundImg = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-        } else {
-            backgroundImg = null;
+        // Load and cache background image from the smallest mip level that covers the screen
+        Image loaded = null;
+        try {
+            BufferedImage source = Mipmaps.read(backgroundName, width, height);
+            if (source != null) {
+                loaded = ImageUtils.scale(source, width, height, BufferedImage.TYPE_INT_RGB);
+            }
+        } catch (IOException e) {
+            System.err.println("[Title] Error reading " + backgroundName + ": " + e.getMessage());
         }
+        backgroundImg = loaded;
 
         // Start button
         JButton startButton = new JButton("Start Game");
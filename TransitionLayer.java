@@ -0,0 +1,283 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.swing.*;
+
+/**
+ * Layer that renders transitions between two backgrounds.
+ *
+ * Crossfades draw the outgoing and incoming frames from two reused back buffers,
+ * with the incoming one composited at the current opacity.
+ *
+ * Rule-image (mask) wipes decide per pixel when the new background shows through:
+ * dark pixels switch first, bright pixels last, with a soft edge of VAGUE levels.
+ * Masks are pre-scaled to the screen and cached as byte arrays. Frames are blended
+ * into an int array in row bands that run in parallel on the common fork-join pool.
+ */
+public class TransitionLayer extends JComponent {
+
+    private static final int VAGUE = 64;              // Soft edge width in mask levels
+    private static final int MAX_CACHED_MASKS = 4;
+    private static final int MIN_ROWS_PER_BAND = 32;
+
+    // One composite per opacity step, so crossfade frames don't allocate
+    private static final AlphaComposite[] FADE_COMPOSITES = new AlphaComposite[256];
+    static {
+        for (int i = 0; i < FADE_COMPOSITES.length; i++) {
+            FADE_COMPOSITES[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i / 255f);
+        }
+    }
+
+    // Rule images scaled to screen size, keyed by file and size
+    private static final Map<String, byte[]> MASK_CACHE =
+        new LinkedHashMap<String, byte[]>(MAX_CACHED_MASKS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > MAX_CACHED_MASKS;
+            }
+        };
+
+    private final int width;
+    private final int height;
+    private final TweenEngine tweens = TweenEngine.getInstance();
+    private final TweenEngine.FloatSetter progressSetter = this::setProgress;
+    private final TweenEngine.FloatSetter fadeSetter = this::setFadeProgress;
+
+    // Frame buffers are allocated on the first transition and reused afterwards
+    private BufferedImage fromFrame;
+    private BufferedImage toFrame;
+    private BufferedImage outFrame;
+    private int[] fromPixels;
+    private int[] toPixels;
+    private int[] outPixels;
+
+    private byte[] mask;
+    private int fadeLevel;                // Incoming frame opacity for crossfades, 0-255
+    private final int[] alphaTable = new int[256];
+    private final BandTask[] bands;
+    private final RecursiveAction blendAll;
+
+    private boolean running;
+
+    public TransitionLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        setBounds(0, 0, width, height);
+        setOpaque(false);
+        setVisible(false);
+
+        int parallelism = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        int bandCount = Math.max(1, Math.min(parallelism * 2, height / MIN_ROWS_PER_BAND));
+        bands = new BandTask[bandCount];
+        int rowsPerBand = (height + bandCount - 1) / bandCount;
+        for (int i = 0; i < bandCount; i++) {
+            int startRow = i * rowsPerBand;
+            bands[i] = new BandTask(startRow * width, Math.min(height, startRow + rowsPerBand) * width);
+        }
+        blendAll = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (BandTask band : bands) {
+                    band.reinitialize();
+                }
+                invokeAll(bands);
+            }
+        };
+    }
+
+    /**
+     * Starts a wipe from one background to another driven by the given rule image.
+     * Returns false if the mask can't be loaded, so the caller can fall back.
+     */
+    public boolean startMaskWipe(Image from, Image to, String maskFile, int durationMs, Runnable onComplete) {
+        byte[] maskBytes = getOrLoadMask(maskFile, width, height);
+        if (maskBytes == null || from == null || to == null) return false;
+
+        tweens.finish(this);
+        ensureFrames();
+        ensureOutput();
+        capture(from, fromFrame);
+        capture(to, toFrame);
+        this.mask = maskBytes;
+        this.running = true;
+
+        setProgress(0f);
+        setVisible(true);
+
+        tweens.timeline(this)
+              .then(progressSetter, 0f, 1f, durationMs, TweenEngine.Easing.LINEAR)
+              .onComplete(() -> {
+                  running = false;
+                  mask = null;
+                  setVisible(false);
+                  if (onComplete != null) onComplete.run();
+              })
+              .start();
+        return true;
+    }
+
+    /**
+     * Starts a crossfade that blends the incoming background directly over the outgoing one.
+     */
+    public boolean startCrossfade(Image from, Image to, int durationMs, Runnable onComplete) {
+        if (from == null || to == null) return false;
+
+        tweens.finish(this);
+        ensureFrames();
+        capture(from, fromFrame);
+        capture(to, toFrame);
+        this.mask = null;
+        this.running = true;
+
+        setFadeProgress(0f);
+        setVisible(true);
+
+        tweens.timeline(this)
+              .then(fadeSetter, 0f, 1f, durationMs, TweenEngine.Easing.EASE_IN_OUT)
+              .onComplete(() -> {
+                  running = false;
+                  setVisible(false);
+                  if (onComplete != null) onComplete.run();
+              })
+              .start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void setFadeProgress(float progress) {
+        int level = Math.max(0, Math.min(255, Math.round(progress * 255)));
+        if (level != fadeLevel) {
+            fadeLevel = level;
+            repaint();
+        }
+    }
+
+    private void setProgress(float progress) {
+        // Map progress to a per-mask-level alpha table once per frame
+        int threshold = Math.round(progress * (255 + VAGUE));
+        for (int level = 0; level < 256; level++) {
+            int a = (threshold - level) * 256 / VAGUE;
+            alphaTable[level] = a < 0 ? 0 : Math.min(a, 256);
+        }
+
+        if (bands.length == 1) {
+            bands[0].compute();
+        } else {
+            blendAll.reinitialize();
+            ForkJoinPool.commonPool().invoke(blendAll);
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (!running) return;
+
+        if (mask != null) {
+            g.drawImage(outFrame, 0, 0, null);
+        } else {
+            Graphics2D g2d = (Graphics2D) g;
+            Composite previous = g2d.getComposite();
+            g2d.drawImage(fromFrame, 0, 0, null);
+            g2d.setComposite(FADE_COMPOSITES[fadeLevel]);
+            g2d.drawImage(toFrame, 0, 0, null);
+            g2d.setComposite(previous);
+        }
+    }
+
+    private void ensureFrames() {
+        if (fromFrame != null) return;
+        fromFrame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        toFrame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        fromPixels = ((DataBufferInt) fromFrame.getRaster().getDataBuffer()).getData();
+        toPixels = ((DataBufferInt) toFrame.getRaster().getDataBuffer()).getData();
+    }
+
+    // The blend target is only needed by mask wipes
+    private void ensureOutput() {
+        if (outFrame != null) return;
+        outFrame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        outPixels = ((DataBufferInt) outFrame.getRaster().getDataBuffer()).getData();
+    }
+
+    private void capture(Image source, BufferedImage target) {
+        Graphics2D g2d = target.createGraphics();
+        try {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, width, height);
+            g2d.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Blends one contiguous range of pixels with the current alpha table.
+     */
+    private final class BandTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+
+        BandTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            final int[] src = fromPixels;
+            final int[] dst = toPixels;
+            final int[] out = outPixels;
+            final byte[] m = mask;
+            final int[] table = alphaTable;
+
+            for (int i = start; i < end; i++) {
+                int a = table[m[i] & 0xFF];
+                if (a == 0) {
+                    out[i] = src[i];
+                } else if (a == 256) {
+                    out[i] = dst[i];
+                } else {
+                    int f = src[i];
+                    int t = dst[i];
+                    int inv = 256 - a;
+                    int rb = (((f & 0xFF00FF) * inv + (t & 0xFF00FF) * a) >>> 8) & 0xFF00FF;
+                    int g = (((f & 0x00FF00) * inv + (t & 0x00FF00) * a) >>> 8) & 0x00FF00;
+                    out[i] = rb | g;
+                }
+            }
+        }
+    }
+
+    private static byte[] getOrLoadMask(String maskFile, int width, int height) {
+        String cacheKey = maskFile + "_" + width + "x" + height;
+        byte[] cached = MASK_CACHE.get(cacheKey);
+        if (cached != null) return cached;
+
+        BufferedImage source = null;
+        try {
+            source = Mipmaps.read(maskFile, width, height);
+        } catch (IOException e) {
+            System.err.println("[Transition] Error reading rule image " + maskFile + ": " + e.getMessage());
+        }
+        if (source == null) {
+            System.err.println("[Transition] Rule image not found: " + maskFile);
+            return null;
+        }
+
+        BufferedImage gray = ImageUtils.scale(source, width, height, BufferedImage.TYPE_BYTE_GRAY);
+        if (gray == null) return null;
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        MASK_CACHE.put(cacheKey, pixels);
+        return pixels;
+    }
+}
@@ -0,0 +1,369 @@
+import java.util.ArrayDeque;
+import javax.swing.Timer;
+
+/**
+ * Time-based tween engine for screen and sprite animations.
+ * All running animations share one Swing timer, and tweens and timelines are
+ * pooled so a running animation doesn't allocate per frame. Continuous simulations
+ * can hook into the same clock with a {@link FrameListener}.
+ *
+ * Usage:
+ *   engine.timeline(label)
+ *         .then(label::setAlpha, 0f, 1f, 300, Easing.EASE_OUT)   // sequenced step
+ *         .with(label::setScale, 0.9f, 1f, 300, Easing.BACK_OUT) // parallel with previous step
+ *         .onComplete(callback)
+ *         .start();
+ */
+public class TweenEngine {
+
+    private static final int FRAME_MS = 16;
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private static TweenEngine instance;
+
+    /**
+     * Receives interpolated values; usually a method reference such as {@code label::setAlpha}.
+     */
+    public interface FloatSetter {
+        void set(float value);
+    }
+
+    /**
+     * Called once per engine frame for continuous simulations such as particles.
+     */
+    public interface FrameListener {
+        void onFrame(float deltaSeconds);
+    }
+
+    /**
+     * Easing curves mapping linear progress [0, 1] to eased progress.
+     */
+    public enum Easing {
+        LINEAR,
+        EASE_IN,
+        EASE_OUT,
+        EASE_IN_OUT,
+        BACK_OUT;
+
+        public float apply(float t) {
+            switch (this) {
+                case EASE_IN:
+                    return t * t * t;
+                case EASE_OUT: {
+                    float u = 1f - t;
+                    return 1f - u * u * u;
+                }
+                case EASE_IN_OUT:
+                    if (t < 0.5f) return 4f * t * t * t;
+                    float u = -2f * t + 2f;
+                    return 1f - u * u * u / 2f;
+                case BACK_OUT: {
+                    final float c1 = 1.70158f;
+                    final float c3 = c1 + 1f;
+                    float v = t - 1f;
+                    return 1f + c3 * v * v * v + c1 * v * v;
+                }
+                default:
+                    return t;
+            }
+        }
+
+        /**
+         * Parses an easing name from script parameters, falling back to the default.
+         */
+        public static Easing parse(String name, Easing defaultValue) {
+            if (name == null) return defaultValue;
+            for (Easing easing : values()) {
+                if (easing.name().equalsIgnoreCase(name.trim())) return easing;
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A single value animation. Instances are owned by the engine's pool.
+     */
+    private static final class Tween {
+        FloatSetter setter;
+        float from;
+        float to;
+        long delayNanos;
+        long durationNanos;
+        long startNanos;
+        Easing easing;
+        Timeline owner;
+
+        void reset() {
+            setter = null;
+            easing = null;
+            owner = null;
+        }
+    }
+
+    /**
+     * A group of tweens that run in parallel or in sequence and share one completion callback.
+     */
+    public final class Timeline {
+        private Object tag;
+        private Runnable onComplete;
+        private int stepStartMs;      // Start offset of the most recent step
+        private int totalEndMs;       // End offset of everything added so far
+        private int remaining;
+        private final ArrayDeque<Tween> pending = new ArrayDeque<>();
+
+        /**
+         * Adds a tween starting after everything added so far has finished.
+         */
+        public Timeline then(FloatSetter setter, float from, float to, int durationMs, Easing easing) {
+            stepStartMs = totalEndMs;
+            return add(setter, from, to, durationMs, easing);
+        }
+
+        /**
+         * Adds a tween starting together with the previous step.
+         */
+        public Timeline with(FloatSetter setter, float from, float to, int durationMs, Easing easing) {
+            return add(setter, from, to, durationMs, easing);
+        }
+
+        /**
+         * Inserts an idle gap before the next {@link #then} step.
+         */
+        public Timeline delay(int ms) {
+            totalEndMs += Math.max(0, ms);
+            stepStartMs = totalEndMs;
+            return this;
+        }
+
+        public Timeline onComplete(Runnable callback) {
+            this.onComplete = callback;
+            return this;
+        }
+
+        public void start() {
+            long now = System.nanoTime();
+            if (pending.isEmpty()) {
+                release(this);
+                if (onComplete != null) onComplete.run();
+                return;
+            }
+            while (!pending.isEmpty()) {
+                Tween tween = pending.poll();
+                tween.startNanos = now + tween.delayNanos;
+                if (tween.delayNanos == 0) {
+                    tween.setter.set(tween.from);
+                }
+                activate(tween);
+            }
+            ensureRunning();
+        }
+
+        private Timeline add(FloatSetter setter, float from, float to, int durationMs, Easing easing) {
+            Tween tween = tweenPool.isEmpty() ? new Tween() : tweenPool.pop();
+            tween.setter = setter;
+            tween.from = from;
+            tween.to = to;
+            tween.delayNanos = stepStartMs * NANOS_PER_MS;
+            tween.durationNanos = Math.max(1, durationMs) * NANOS_PER_MS;
+            tween.easing = easing != null ? easing : Easing.LINEAR;
+            tween.owner = this;
+            pending.add(tween);
+            remaining++;
+            totalEndMs = Math.max(totalEndMs, stepStartMs + Math.max(1, durationMs));
+            return this;
+        }
+
+        private void reset() {
+            tag = null;
+            onComplete = null;
+            stepStartMs = 0;
+            totalEndMs = 0;
+            remaining = 0;
+        }
+    }
+
+    private final Timer timer;
+    private Tween[] active = new Tween[64];
+    private int activeCount;
+    private final ArrayDeque<Tween> tweenPool = new ArrayDeque<>();
+    private final ArrayDeque<Timeline> timelinePool = new ArrayDeque<>();
+    private final ArrayDeque<Timeline> completed = new ArrayDeque<>();
+    private FrameListener[] frameListeners = new FrameListener[4];
+    private int frameListenerCount;
+    private long lastFrameNanos;
+
+    private TweenEngine() {
+        timer = new Timer(FRAME_MS, e -> onFrame());
+        timer.setCoalesce(true);
+    }
+
+    public static TweenEngine getInstance() {
+        if (instance == null) {
+            instance = new TweenEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Obtains a pooled timeline. {@code tag} identifies the animated object for {@link #finish}.
+     */
+    public Timeline timeline(Object tag) {
+        Timeline timeline = timelinePool.isEmpty() ? new Timeline() : timelinePool.pop();
+        timeline.tag = tag;
+        return timeline;
+    }
+
+    /**
+     * Jumps all running tweens with the given tag to their end values and fires their callbacks.
+     */
+    public void finish(Object tag) {
+        if (tag == null) return;
+        long now = System.nanoTime();
+        for (int i = 0; i < activeCount; i++) {
+            Tween tween = active[i];
+            if (tween.owner.tag == tag) {
+                tween.startNanos = now - tween.durationNanos;  // Treated as finished on the next pass
+            }
+        }
+        advanceTweens(now);
+        stopIfIdle();
+    }
+
+    /**
+     * Stops all running tweens with the given tag where they are, without firing their
+     * callbacks; for an animation that is being replaced.
+     */
+    public void cancel(Object tag) {
+        if (tag == null) return;
+        int i = 0;
+        while (i < activeCount) {
+            Tween tween = active[i];
+            Timeline owner = tween.owner;
+            if (owner.tag != tag) {
+                i++;
+                continue;
+            }
+            active[i] = active[--activeCount];
+            active[activeCount] = null;
+            tween.reset();
+            tweenPool.push(tween);
+            if (--owner.remaining == 0) release(owner);
+        }
+        stopIfIdle();
+    }
+
+    /**
+     * Registers a listener that runs every frame until removed.
+     */
+    public void addFrameListener(FrameListener listener) {
+        for (int i = 0; i < frameListenerCount; i++) {
+            if (frameListeners[i] == listener) return;
+        }
+        if (frameListenerCount == frameListeners.length) {
+            FrameListener[] grown = new FrameListener[frameListeners.length * 2];
+            System.arraycopy(frameListeners, 0, grown, 0, frameListenerCount);
+            frameListeners = grown;
+        }
+        frameListeners[frameListenerCount++] = listener;
+        ensureRunning();
+    }
+
+    public void removeFrameListener(FrameListener listener) {
+        for (int i = 0; i < frameListenerCount; i++) {
+            if (frameListeners[i] == listener) {
+                frameListeners[i] = frameListeners[--frameListenerCount];
+                frameListeners[frameListenerCount] = null;
+                break;
+            }
+        }
+    }
+
+    public boolean isAnimating(Object tag) {
+        for (int i = 0; i < activeCount; i++) {
+            if (active[i].owner.tag == tag) return true;
+        }
+        return false;
+    }
+
+    private void activate(Tween tween) {
+        if (activeCount == active.length) {
+            Tween[] grown = new Tween[active.length * 2];
+            System.arraycopy(active, 0, grown, 0, activeCount);
+            active = grown;
+        }
+        active[activeCount++] = tween;
+    }
+
+    private void ensureRunning() {
+        if (!timer.isRunning()) {
+            lastFrameNanos = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    private void stopIfIdle() {
+        if (activeCount == 0 && frameListenerCount == 0) {
+            timer.stop();
+        }
+    }
+
+    private void onFrame() {
+        long now = System.nanoTime();
+        float deltaSeconds = Math.min(0.1f, (now - lastFrameNanos) / 1e9f);  // Clamp stalls
+        lastFrameNanos = now;
+
+        advanceTweens(now);
+
+        // Iterate backwards so listeners may remove themselves
+        for (int i = frameListenerCount - 1; i >= 0; i--) {
+            if (i < frameListenerCount) {
+                frameListeners[i].onFrame(deltaSeconds);
+            }
+        }
+        stopIfIdle();
+    }
+
+    private void advanceTweens(long now) {
+        int i = 0;
+        while (i < activeCount) {
+            Tween tween = active[i];
+            long elapsed = now - tween.startNanos;
+            if (elapsed < 0) {
+                i++;
+                continue;
+            }
+
+            if (elapsed >= tween.durationNanos) {
+                tween.setter.set(tween.to);
+                Timeline owner = tween.owner;
+                // Swap-remove keeps the array dense without shifting
+                active[i] = active[--activeCount];
+                active[activeCount] = null;
+                tween.reset();
+                tweenPool.push(tween);
+                if (--owner.remaining == 0) {
+                    completed.add(owner);
+                }
+                continue;
+            }
+
+            float t = (float) elapsed / tween.durationNanos;
+            float eased = tween.easing.apply(t);
+            tween.setter.set(tween.from + (tween.to - tween.from) * eased);
+            i++;
+        }
+
+        // Callbacks run after the pass because they often start new timelines
+        while (!completed.isEmpty()) {
+            Timeline timeline = completed.poll();
+            Runnable callback = timeline.onComplete;
+            release(timeline);
+            if (callback != null) callback.run();
+        }
+    }
+
+    private void release(Timeline timeline) {
+        timeline.reset();
+        timelinePool.push(timeline);
+    }
+}
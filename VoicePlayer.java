@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays per-line voice clips on the voice channel of the {@link AudioMixer}.
+ *
+ * One clip sounds at a time; starting a line's voice cuts the previous one. Clips for
+ * the upcoming lines are decoded ahead of time by {@link #retain}, so back-to-back
+ * voiced lines start without a load gap. A clip is released once it starts playing and
+ * preloaded clips that are no longer ahead are dropped, so memory stays at about one
+ * lookahead's worth of clips.
+ *
+ * {@link #retain}, {@link #play} and {@link #stop} run on the audio command thread;
+ * the completion listener is called on the mixer thread.
+ */
+public class VoicePlayer implements AudioMixer.Source {
+
+    /**
+     * Listener notified when a clip has played to its end, or couldn't be played at all.
+     * Clips that are cut off are not reported.
+     */
+    public interface CompletionListener {
+        void onVoiceFinished(String filename);
+    }
+
+    private final AudioMixer mixer;
+    private final Map<String, ByteBuffer> preloaded = new HashMap<>();   // Audio thread only
+    private volatile CompletionListener listener;
+    private ShortBuffer samples;   // Guarded by this
+    private String playing;
+    private long requestNanos;
+    private int position;
+    private boolean registered;
+
+    public VoicePlayer(AudioMixer mixer) {
+        this.mixer = mixer;
+    }
+
+    public void setCompletionListener(CompletionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Keeps exactly the given upcoming clips decoded, loading the missing ones.
+     */
+    public void retain(List<String> upcoming) {
+        preloaded.keySet().retainAll(upcoming);
+        for (String filename : upcoming) {
+            if (!preloaded.containsKey(filename)) {
+                ByteBuffer pcm = decode(mixer, filename);
+                if (pcm != null) preloaded.put(filename, pcm);
+            }
+        }
+    }
+
+    /**
+     * Starts a clip, cutting the current one. Uses the preloaded copy when there is one.
+     * requestNanos is when the caller asked for it, for {@link AudioMetrics}.
+     */
+    public void play(String filename, long requestNanos) {
+        ByteBuffer pcm = preloaded.remove(filename);
+        if (pcm == null) {
+            System.out.println("[Audio] Voice not preloaded: " + filename);
+            pcm = decode(mixer, filename);
+        }
+        if (pcm == null) {
+            stop();
+            notifyFinished(filename);   // Nothing to wait for
+            return;
+        }
+        boolean started;
+        synchronized (this) {
+            samples = pcm.asShortBuffer();
+            playing = filename;
+            this.requestNanos = requestNanos;
+            position = 0;
+            if (!registered) registered = mixer.add(AudioMixer.CHANNEL_VOICE, this);
+            started = registered;
+            if (!started) {
+                samples = null;
+                playing = null;
+            }
+        }
+        if (!started) notifyFinished(filename);   // No output line; nothing to wait for
+    }
+
+    public synchronized void stop() {
+        samples = null;
+        playing = null;
+    }
+
+    /**
+     * Stops playback and drops every preloaded clip.
+     */
+    public void release() {
+        stop();
+        preloaded.clear();
+    }
+
+    @Override
+    public boolean mixInto(int[] mix, int frames, float gain) {
+        String finished;
+        synchronized (this) {
+            if (samples == null) {
+                registered = false;
+                return false;
+            }
+            if (position == 0) {
+                mixer.getMetrics().recordFirstSample(AudioMixer.CHANNEL_VOICE, playing, requestNanos);
+            }
+            int count = Math.min(frames * 2, samples.limit() - position);
+            for (int i = 0, s = position; i < count; i++, s++) {
+                mix[i] += (int) (samples.get(s) * gain);
+            }
+            position += count;
+            if (position < samples.limit()) return true;
+
+            finished = playing;
+            samples = null;
+            playing = null;
+            registered = false;
+        }
+        notifyFinished(finished);
+        return false;
+    }
+
+    @Override
+    public void discarded() {
+        String dropped;
+        synchronized (this) {
+            dropped = playing;
+            samples = null;
+            playing = null;
+            registered = false;
+        }
+        if (dropped != null) notifyFinished(dropped);
+    }
+
+    private void notifyFinished(String filename) {
+        CompletionListener current = listener;
+        if (current != null) current.onVoiceFinished(filename);
+    }
+
+    private static ByteBuffer decode(AudioMixer mixer, String filename) {
+        long start = System.nanoTime();
+        try (AudioInputStream stream = AudioMixer.openConverted(filename)) {
+            if (stream == null) {
+                System.err.println("[Audio] Voice file not found: " + filename);
+                return null;
+            }
+            byte[] bytes = stream.readAllBytes();
+            ByteBuffer pcm = PcmCache.allocate(bytes.length);
+            pcm.put(bytes).flip();
+            mixer.getMetrics().recordDecode(filename, start, bytes.length);
+            return pcm;
+        } catch (UnsupportedAudioFileException | IOException e) {
+            System.err.println("[Audio] Error loading voice " + filename + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
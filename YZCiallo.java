@@ -3,11 +3,16 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -31,7 +36,8 @@ public class YZCiallo extends JFrame {
     private static final int IDX_SCRIPT = 4;
     private static final int IDX_TEXT = 5;
     private static final String SAVE_SEPARATOR = "###";
-    private static final String SAVE_FILE = "save.dat";
+    private static final String SAVE_FILE = "save.slots";
+    private static final String LEGACY_SAVE_FILE = "save.dat";
     private static final String DEFAULT_SCRIPT = "Chapter1_1.json";
     private static final String EMPTY_SLOT = "EMPTY";
     private static final int TRANSITION_SPEED = 10;
@@ -39,10 +45,18 @@ public class YZCiallo extends JFrame {
     private static final int AUTO_BASE_DELAY_MS = 1500;
     private static final int AUTO_MS_PER_CHAR = 50;
     private static final int AUTO_MAX_DELAY_MS = 10000;
+    private static final int AUTO_VOICE_PAUSE_MS = 600;
+    private static final int VOICE_LOOKAHEAD_LINES = 4;
     private static final int PREVIEW_MAX_LENGTH = 15;
     private static final int DEFAULT_TYPE_SPEED = 30;
-
-    // Screen dimensions (final for immutability)
+    private static final int CHAR_ANIM_DEFAULT_MS = 400;
+    private static final int MASK_WIPE_DEFAULT_MS = 1000;
+    private static final int CROSSFADE_DEFAULT_MS = 800;
+    private static final int BGM_FADE_DEFAULT_MS = 1000;
+    private static final long IMAGE_CACHE_MIN_BYTES = 64L << 20;
+    private static final int MIN_WINDOW_WIDTH = 640;
+
+    // Logical design resolution; the window content is scaled to fit it
     private final int screenWidth;
     private final int screenHeight;
     private final int characterHeight;
@@ -56,6 +70,7 @@ public class YZCiallo extends JFrame {
     private Timer transitionTimer;
     private boolean isGameOver;
     private final ArrayList<String> currentState = new ArrayList<>(6);
+    private final SaveStore saveStore = new SaveStore(new File(SAVE_FILE));
     private final ArrayList<String> backlog = new ArrayList<>();
     private Timer autoTimer;
     private boolean isAutoMode;
@@ -63,22 +78,36 @@ public class YZCiallo extends JFrame {
     private boolean isSkipMode = false;
     private int typeSpeed = DEFAULT_TYPE_SPEED;
     private boolean isTypingComplete = true;
+    private String nextLineVoice;   // Set by a VOICE command for the following dialogue line
+    private String playingVoice;    // Voice of the current line until it finishes
 
     // Multiple character positions
-    private final Map<String, JLabel> characterLabels = new HashMap<>();
+    private final Map<String, SpriteLabel> characterLabels = new HashMap<>();
     private final Map<String, Point> characterPositions = new HashMap<>();
 
-    // Image cache for better performance
-    private final Map<String, Image> scaledImageCache = new HashMap<>();
+    // Image cache for better performance, bounded to a quarter of the heap
+    private final ImageCache scaledImageCache =
+        new ImageCache(Math.max(IMAGE_CACHE_MIN_BYTES, Runtime.getRuntime().maxMemory() / 4));
     private Map<String,Integer> gameVariable = new HashMap<>();
+    private CharacterSprites characterSprites;
 
     // UI Components
     private final JLayeredPane layers;
-    private JLabel backgroundLabel;
+    private SpriteLabel backgroundLabel;
     private JPanel curtainPanel;
-    private JLabel characterLabel;          // Main character (center)
-    private JLabel characterLabelLeft;      // Left position
-    private JLabel characterLabelRight;     // Right position
+    private TransitionLayer transitionLayer;
+    private Image currentBackground;
+    private String pendingBackground;       // Background being decoded for a crossfade
+
+    // Decodes upcoming backgrounds off the EDT
+    private final ExecutorService imageLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "image-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private SpriteLabel characterLabel;          // Main character (center)
+    private SpriteLabel characterLabelLeft;      // Left position
+    private SpriteLabel characterLabelRight;     // Right position
     private DialoguePanel dialogueBox;
     private TitleScreen titlePanel;
     private ChoicePanel choicePanel;
@@ -88,6 +117,11 @@ public class YZCiallo extends JFrame {
     private JLabel skipModeIndicator;
     private SettingsPanel settingsPanel;
     private ScreenEffects screenEffects;
+    private DirtyRegionManager dirtyRegions;
+    private RepaintOverlay repaintOverlay;
+    private FullscreenMode fullscreenMode;
+    private ScaledViewport viewport;
+    private float renderScale = 1f;      // Scale bucket images are currently prepared for
 
     // Audio and game state managers
     private AudioManager audioManager;
@@ -103,9 +137,15 @@ public class YZCiallo extends JFrame {
         this.screenHeight = screenSize.height;
         this.characterHeight = screenHeight * 3 / 4;
         this.characterWidth = characterHeight / 2;
+        this.characterSprites = new CharacterSprites(characterWidth, characterHeight, scaledImageCache);
+
+        // Index packs, DLC, translation and loose files once; lookups are table hits afterwards
+        Assets.getInstance().mountGameLayout();
+        migrateLegacySaves();
 
         // Initialize managers
         audioManager = AudioManager.getInstance();
+        audioManager.setVoiceListener(filename -> SwingUtilities.invokeLater(() -> onVoiceFinished(filename)));
         gameState = GameState.getInstance();
 
         // Initialize state
@@ -116,14 +156,17 @@ public class YZCiallo extends JFrame {
         setTitle("My Java Galgame Engine");
         setSize(screenWidth, screenHeight);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(null);
         setLocationRelativeTo(null);
-        setResizable(false);
+        setResizable(true);
+        setMinimumSize(new Dimension(MIN_WINDOW_WIDTH, MIN_WINDOW_WIDTH * screenHeight / screenWidth));
 
-        // Create main layer container
+        // Create main layer container at the design resolution, scaled into the window
         layers = new JLayeredPane();
         layers.setBounds(0, 0, screenWidth, screenHeight);
-        add(layers);
+        dirtyRegions = DirtyRegionManager.install(layers);
+        viewport = new ScaledViewport(this, layers, dirtyRegions, screenWidth, screenHeight);
+        viewport.setScaleListener(this::onRenderScaleChanged);
+        setContentPane(viewport);
 
         // Initialize all components
         initBackgroundLayer();
@@ -146,6 +189,11 @@ public class YZCiallo extends JFrame {
     private void initScreenEffects() {
         screenEffects = new ScreenEffects(screenWidth, screenHeight);
         layers.add(screenEffects.getEffectLayer(), Integer.valueOf(3500));
+
+        // F3 debug overlay showing the pixels repainted each frame
+        repaintOverlay = new RepaintOverlay(screenWidth, screenHeight);
+        layers.add(repaintOverlay, Integer.valueOf(5000));
+        dirtyRegions.setRepaintListener(repaintOverlay, repaintOverlay);
     }
 
     private void initSettings() {
@@ -178,12 +226,31 @@ public class YZCiallo extends JFrame {
             }
             @Override
             public void onFullscreenChanged(boolean fullscreen) {
-                // Handle fullscreen toggle if needed
+                setFullscreen(fullscreen);
             }
         });
+        settingsPanel.setFullscreenValue(false);
         layers.add(settingsPanel, Integer.valueOf(4000));
     }
 
+    /**
+     * Switches between exclusive fullscreen and the window. When fullscreen isn't
+     * available the window is kept and the setting is unchecked again.
+     */
+    private void setFullscreen(boolean fullscreen) {
+        if (fullscreenMode == null) {
+            fullscreenMode = new FullscreenMode(this, layers, dirtyRegions);
+        }
+        if (fullscreen) {
+            if (!fullscreenMode.enter()) {
+                settingsPanel.setFullscreenValue(false);
+            }
+        } else {
+            fullscreenMode.exit();
+        }
+        requestFocusInWindow();
+    }
+
     private void initializeState() {
         currentState.add("0");              // IDX_LINE
         currentState.add("Background");     // IDX_BG
@@ -198,6 +265,10 @@ public class YZCiallo extends JFrame {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    repaintOverlay.setVisible(!repaintOverlay.isVisible());
+                    return;
+                }
                 if (titlePanel.isVisible()) return;
                 if (choicePanel.isVisible()) return;
                 
@@ -254,13 +325,24 @@ public class YZCiallo extends JFrame {
      */
     public void loadScript(String filename) {
         scriptLines.clear();
+        InputStream stream;
+        try {
+            stream = Assets.getInstance().openStream(filename);
+        } catch (IOException e) {
+            stream = null;
+        }
+        if (stream == null) {
+            System.err.println("Error: Script file not found [" + filename + "]");
+            return;
+        }
         try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8))) {
+                new InputStreamReader(stream, StandardCharsets.UTF_8))) {
             java.lang.reflect.Type listType = new TypeToken<ArrayList<ScriptData>>(){}.getType();
             scriptLines = GSON.fromJson(reader, listType);
             System.out.println("Script loaded: " + scriptLines.size() + " lines");
-        } catch (FileNotFoundException e) {
-            System.err.println("Error: Script file not found [" + filename + "]");
+            if (dialogueBox != null) {
+                dialogueBox.prefetchLayouts(scriptLines, 0);
+            }
         } catch (JsonSyntaxException e) {
             System.err.println("Error: JSON syntax error in script");
             e.printStackTrace();
@@ -271,11 +353,19 @@ public class YZCiallo extends JFrame {
     }
 
     private void initBackgroundLayer() {
-        Image bgImage = loadAndScaleImage("Background.jpg", screenWidth, screenHeight);
-        backgroundLabel = new JLabel(new ImageIcon(bgImage));
+        Image bgImage = loadBackground("Background.jpg");
+        backgroundLabel = new SpriteLabel(0.5f, 0.5f);
+        if (bgImage != null) {
+            backgroundLabel.setSprite(CharacterSprites.Sprite.of(bgImage, renderScale));
+        }
+        currentBackground = bgImage;
         backgroundLabel.setBounds(0, 0, screenWidth, screenHeight);
         layers.add(backgroundLabel, JLayeredPane.DEFAULT_LAYER);
 
+        // Mask wipes blend backgrounds just above the background layer
+        transitionLayer = new TransitionLayer(screenWidth, screenHeight);
+        layers.add(transitionLayer, Integer.valueOf(JLayeredPane.DEFAULT_LAYER + 1));
+
         // Curtain panel for transitions
         curtainPanel = new JPanel() {
             @Override
@@ -290,7 +380,7 @@ public class YZCiallo extends JFrame {
     }
 
     private void initCharacterLayer() {
-        characterLabel = new JLabel();
+        characterLabel = new SpriteLabel();
         characterLabel.setBounds(screenWidth / 4, screenHeight - characterHeight, 
                                  characterWidth, characterHeight);
         layers.add(characterLabel, JLayeredPane.PALETTE_LAYER);
@@ -326,8 +416,8 @@ public class YZCiallo extends JFrame {
                 if (e.getButton() == MouseEvent.BUTTON1) {
                     handleLeftClick();
                 } else if (e.getButton() == MouseEvent.BUTTON3) {
+                    // Hiding or showing repaints just the text box bounds
                     dialogueBox.setVisible(!dialogueBox.isVisible());
-                    layers.repaint();
                 }
             }
         });
@@ -375,7 +465,6 @@ public class YZCiallo extends JFrame {
             dialogueBox.skipTyping();
         } else {
             advanceStory();
-            repaint();
         }
     }
 
@@ -401,6 +490,7 @@ public class YZCiallo extends JFrame {
     }
 
     private void returnToTitle() {
+        resetVoice();
         titlePanel.setVisible(true);
         dialogueBox.setVisible(false);
     }
@@ -410,51 +500,21 @@ public class YZCiallo extends JFrame {
      */
     public void setCharacterEmotion(String name, String mood) {
         if (name == null || name.isEmpty() || "null".equals(name)) {
-            characterLabel.setIcon(null);
+            characterLabel.clearSprite();
             return;
         }
 
-        String filename = mood != null && !mood.isEmpty() && !"null".equals(mood)
-            ? name + "_" + mood + ".jpg"
-            : name + ".jpg";
-
-        Image cachedImage = getOrLoadCharacterImage(filename, name + ".jpg");
-        if (cachedImage != null) {
-            characterLabel.setIcon(new ImageIcon(cachedImage));
+        CharacterSprites.Sprite sprite = characterSprites.get(name, mood);
+        if (sprite != null) {
+            characterLabel.setSprite(sprite);  // Repaints only the changed sprite bounds
             currentState.set(IDX_CHAR, name);
             currentState.set(IDX_MOOD, mood);
         }
-        characterLabel.repaint();
-    }
-
-    /**
-     * Gets image from cache or loads and caches it.
-     */
-    private Image getOrLoadCharacterImage(String primaryFile, String fallbackFile) {
-        // Check cache first
-        if (scaledImageCache.containsKey(primaryFile)) {
-            return scaledImageCache.get(primaryFile);
-        }
-
-        ImageIcon icon = new ImageIcon(primaryFile);
-        String fileToUse = primaryFile;
-
-        if (icon.getImageLoadStatus() != MediaTracker.COMPLETE) {
-            icon = new ImageIcon(fallbackFile);
-            fileToUse = fallbackFile;
-            if (icon.getImageLoadStatus() != MediaTracker.COMPLETE) {
-                return null;
-            }
-        }
-
-        Image scaled = icon.getImage().getScaledInstance(characterWidth, characterHeight, Image.SCALE_SMOOTH);
-        scaledImageCache.put(fileToUse, scaled);
-        return scaled;
     }
 
     private void initCommands() {
         commandMap.put("bg", action -> {
-            playTransition(action.param);
+            playTransition(action.param, action.text);
             dialogueBox.clearstage();
             currentState.set(IDX_BG, action.param);
             return false;
@@ -470,10 +530,22 @@ public class YZCiallo extends JFrame {
             currentState.set(IDX_MOOD, action.mood);
             currentState.set(IDX_TEXT, action.text);
             
+            // Each line cuts the previous line's voice
+            String voice = action.voice != null ? action.voice : nextLineVoice;
+            nextLineVoice = null;
+            playingVoice = voice;
+            if (voice != null) {
+                audioManager.playVoice(voice);
+            } else {
+                audioManager.stopVoice();
+            }
+
             // Use typing effect
             dialogueBox.typeText(name, text, () -> {
                 isTypingComplete = true;
             });
+            dialogueBox.prefetchLayouts(scriptLines, storyIndex + 1);
+            preloadVoices(storyIndex + 1);
             
             // Add to backlog
             String logEntry = isNullOrEmpty(action.name) 
@@ -509,10 +581,13 @@ public class YZCiallo extends JFrame {
 
         // Audio commands
         commandMap.put("bgm", action -> {
-            if ("stop".equalsIgnoreCase(action.text)) {
-                audioManager.stopBGM();
+            // text: optional crossfade ms, or "stop[,ms]" to (fade out and) stop
+            String[] args = action.text != null ? action.text.split(",") : new String[0];
+            if (args.length > 0 && "stop".equalsIgnoreCase(args[0].trim())) {
+                audioManager.stopBGM(args.length > 1 ? parseIntOrDefault(args[1], 0) : 0);
             } else if (action.param != null) {
-                audioManager.playBGM(action.param);
+                int fade = args.length > 0 ? parseIntOrDefault(args[0], BGM_FADE_DEFAULT_MS) : BGM_FADE_DEFAULT_MS;
+                audioManager.playBGM(action.param, fade);
             }
             storyIndex++;
             currentState.set(IDX_LINE, Integer.toString(storyIndex));
@@ -520,6 +595,14 @@ public class YZCiallo extends JFrame {
             return true;
         });
 
+        commandMap.put("voice", action -> {
+            nextLineVoice = action.param;
+            storyIndex++;
+            currentState.set(IDX_LINE, Integer.toString(storyIndex));
+            advanceStory();
+            return true;
+        });
+
         commandMap.put("se", action -> {
             if (action.param != null) {
                 audioManager.playSE(action.param);
@@ -607,6 +690,32 @@ public class YZCiallo extends JFrame {
                     currentState.set(IDX_LINE, Integer.toString(storyIndex));
                     advanceStory();
                 });
+            } else if ("zoom".equalsIgnoreCase(effectType)) {
+                // params: scale[,durationMs], e.g. "1.2,800"; "1" resets
+                String[] args = params != null ? params.split(",") : new String[0];
+                float scale = args.length > 0 ? parseFloatOrDefault(args[0], 1f) : 1f;
+                int duration = args.length > 1 ? parseIntOrDefault(args[1], 500) : 500;
+                screenEffects.zoom(backgroundLabel, scale, duration, () -> {
+                    storyIndex++;
+                    currentState.set(IDX_LINE, Integer.toString(storyIndex));
+                    advanceStory();
+                });
+            } else if (ParticleSystem.Kind.parse(effectType) != null) {
+                // rain / snow / sakura; params: particles per second, "stop" to end that kind
+                ParticleSystem.Kind kind = ParticleSystem.Kind.parse(effectType);
+                if ("stop".equalsIgnoreCase(params != null ? params.trim() : null)) {
+                    screenEffects.stopWeather(kind);
+                } else {
+                    screenEffects.startWeather(kind, parseIntOrDefault(params, 0));
+                }
+                storyIndex++;
+                currentState.set(IDX_LINE, Integer.toString(storyIndex));
+                advanceStory();
+            } else if ("weather_stop".equalsIgnoreCase(effectType)) {
+                screenEffects.stopWeather(null);
+                storyIndex++;
+                currentState.set(IDX_LINE, Integer.toString(storyIndex));
+                advanceStory();
             } else if ("shake".equalsIgnoreCase(effectType)) {
                 int intensity = parseIntOrDefault(params, 10);
                 screenEffects.shake(backgroundLabel, intensity, 300, () -> {
@@ -639,7 +748,7 @@ public class YZCiallo extends JFrame {
         // Character positioning
         commandMap.put("char", action -> {
             String position = action.param != null ? action.param.toLowerCase() : "center";
-            showCharacterAt(action.name, action.mood, position);
+            showCharacterAt(action.name, action.mood, position, action.text);
             storyIndex++;
             currentState.set(IDX_LINE, Integer.toString(storyIndex));
             advanceStory();
@@ -665,14 +774,23 @@ public class YZCiallo extends JFrame {
         }
     }
 
-    private void showCharacterAt(String name, String mood, String position) {
-        JLabel targetLabel;
+    private float parseFloatOrDefault(String value, float defaultValue) {
+        if (value == null) return defaultValue;
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void showCharacterAt(String name, String mood, String position, String animation) {
+        SpriteLabel targetLabel;
         int xPos;
         
         switch (position) {
             case "left":
                 if (characterLabelLeft == null) {
-                    characterLabelLeft = new JLabel();
+                    characterLabelLeft = new SpriteLabel();
                     characterLabelLeft.setBounds(screenWidth / 8, screenHeight - characterHeight, 
                                                  characterWidth, characterHeight);
                     layers.add(characterLabelLeft, JLayeredPane.PALETTE_LAYER);
@@ -682,7 +800,7 @@ public class YZCiallo extends JFrame {
                 break;
             case "right":
                 if (characterLabelRight == null) {
-                    characterLabelRight = new JLabel();
+                    characterLabelRight = new SpriteLabel();
                     characterLabelRight.setBounds(screenWidth * 5 / 8, screenHeight - characterHeight, 
                                                   characterWidth, characterHeight);
                     layers.add(characterLabelRight, JLayeredPane.PALETTE_LAYER);
@@ -696,29 +814,70 @@ public class YZCiallo extends JFrame {
                 break;
         }
         
-        String filename = mood != null && !mood.isEmpty() && !"null".equals(mood)
-            ? name + "_" + mood + ".jpg"
-            : name + ".jpg";
-        
-        Image cachedImage = getOrLoadCharacterImage(filename, name + ".jpg");
-        if (cachedImage != null) {
-            targetLabel.setIcon(new ImageIcon(cachedImage));
+        CharacterSprites.Sprite sprite = characterSprites.get(name, mood);
+        if (sprite != null) {
+            targetLabel.setSprite(sprite);
         }
         characterLabels.put(position, targetLabel);
         characterPositions.put(position, new Point(xPos, screenHeight - characterHeight));
+        animateCharacter(targetLabel, xPos, position, animation);
+    }
+
+    /**
+     * Plays a CHAR entrance animation given in the command's text field:
+     * "slide_in", "fade_in" or "zoom", optionally followed by ",durationMs[,easing]".
+     */
+    private void animateCharacter(SpriteLabel label, int xPos, String position, String animation) {
+        TweenEngine tweens = TweenEngine.getInstance();
+        tweens.finish(label);
+        label.setAlpha(1f);
+        label.setScale(1f);
+        label.setLocation(xPos, label.getY());
+
+        if (isNullOrEmpty(animation) || isSkipMode) return;
+
+        String[] args = animation.split(",");
+        String kind = args[0].trim().toLowerCase();
+        int duration = args.length > 1 ? parseIntOrDefault(args[1], CHAR_ANIM_DEFAULT_MS) : CHAR_ANIM_DEFAULT_MS;
+        TweenEngine.Easing easing = TweenEngine.Easing.parse(args.length > 2 ? args[2] : null,
+                                                             TweenEngine.Easing.EASE_OUT);
+
+        switch (kind) {
+            case "slide_in": {
+                float startX = "right".equals(position) ? screenWidth : -characterWidth;
+                tweens.timeline(label)
+                      .then(label::setX, startX, xPos, duration, easing)
+                      .with(label::setAlpha, 0f, 1f, duration, TweenEngine.Easing.LINEAR)
+                      .start();
+                break;
+            }
+            case "fade_in":
+                tweens.timeline(label)
+                      .then(label::setAlpha, 0f, 1f, duration, easing)
+                      .start();
+                break;
+            case "zoom":
+                tweens.timeline(label)
+                      .then(label::setScale, 0.85f, 1f, duration, TweenEngine.Easing.BACK_OUT)
+                      .with(label::setAlpha, 0f, 1f, duration / 2, easing)
+                      .start();
+                break;
+            default:
+                break;
+        }
     }
 
     private void hideCharacter(String target) {
         if ("all".equals(target)) {
-            characterLabel.setIcon(null);
-            if (characterLabelLeft != null) characterLabelLeft.setIcon(null);
-            if (characterLabelRight != null) characterLabelRight.setIcon(null);
+            characterLabel.clearSprite();
+            if (characterLabelLeft != null) characterLabelLeft.clearSprite();
+            if (characterLabelRight != null) characterLabelRight.clearSprite();
         } else if ("left".equals(target) && characterLabelLeft != null) {
-            characterLabelLeft.setIcon(null);
+            characterLabelLeft.clearSprite();
         } else if ("right".equals(target) && characterLabelRight != null) {
-            characterLabelRight.setIcon(null);
+            characterLabelRight.clearSprite();
         } else if ("center".equals(target)) {
-            characterLabel.setIcon(null);
+            characterLabel.clearSprite();
         }
     }
 
@@ -732,7 +891,11 @@ public class YZCiallo extends JFrame {
                 return;
             }
             // Don't advance during transitions
-            if (transitionTimer != null && transitionTimer.isRunning()) {
+            if (isTransitionRunning()) {
+                return;
+            }
+            // Voiced lines advance when the voice finishes instead
+            if (playingVoice != null) {
                 return;
             }
             advanceStory();
@@ -746,6 +909,7 @@ public class YZCiallo extends JFrame {
     /**
      * Calculates and sets the auto timer delay based on current dialogue text length.
      * Reading speed: ~200-250 words per minute, approximately 50ms per character.
+     * Voiced lines wait for their voice instead, see {@link #onVoiceFinished}.
      */
     private void updateAutoTimerDelay() {
         String currentText = currentState.get(IDX_TEXT);
@@ -760,6 +924,57 @@ public class YZCiallo extends JFrame {
         autoTimer.setDelay(delay);
     }
 
+    /**
+     * Preloads the voices of the next few voiced lines, up to the end of the chapter.
+     */
+    private void preloadVoices(int fromIndex) {
+        ArrayList<String> upcoming = new ArrayList<>();
+        for (int i = fromIndex; i < scriptLines.size() && upcoming.size() < VOICE_LOOKAHEAD_LINES; i++) {
+            ScriptData line = scriptLines.get(i);
+            if (line.isType(ScriptData.TYPE_NEXT_CHAPTER)) break;
+            if (line.isType(ScriptData.TYPE_DIALOGUE) && line.voice != null) {
+                upcoming.add(line.voice);
+            } else if (line.isType(ScriptData.TYPE_VOICE) && line.param != null) {
+                upcoming.add(line.param);
+            }
+        }
+        audioManager.preloadVoices(upcoming);
+    }
+
+    /**
+     * Stops the current voice and forgets any pending one, when leaving the current line
+     * for a loaded save or the title.
+     */
+    private void resetVoice() {
+        nextLineVoice = null;
+        playingVoice = null;
+        audioManager.stopVoice();
+    }
+
+    /**
+     * Voice set by a VOICE command right before the given line, or null.
+     */
+    private String voiceCommandBefore(int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            ScriptData line = scriptLines.get(i);
+            if ("Label".equalsIgnoreCase(line.type)) continue;
+            return line.isType(ScriptData.TYPE_VOICE) ? line.param : null;
+        }
+        return null;
+    }
+
+    /**
+     * In auto mode, moves on shortly after the current line's voice has finished.
+     */
+    private void onVoiceFinished(String filename) {
+        if (!filename.equals(playingVoice)) return;   // An earlier line's voice
+        playingVoice = null;
+        if (isAutoMode) {
+            autoTimer.setInitialDelay(AUTO_VOICE_PAUSE_MS);
+            autoTimer.restart();
+        }
+    }
+
     public void advanceStory() {
         if (storyIndex >= scriptLines.size()) {
             handleEndOfScript();
@@ -783,7 +998,6 @@ public class YZCiallo extends JFrame {
 
         storyIndex++;
         currentState.set(IDX_LINE, Integer.toString(storyIndex));
-        repaint();
     }
 
     private void handleEndOfScript() {
@@ -805,8 +1019,92 @@ public class YZCiallo extends JFrame {
             .orElse(-1);
     }
 
+    private boolean isTransitionRunning() {
+        return (transitionTimer != null && transitionTimer.isRunning())
+            || transitionLayer.isRunning() || pendingBackground != null;
+    }
+
+    /**
+     * Changes the background with the transition named in the BG command's text field.
+     * "mask:rule.png[,ms]" runs a rule-image wipe, "crossfade[,ms]" blends the two
+     * backgrounds directly; anything else uses the black curtain.
+     */
+    public void playTransition(String newBgFile, String transition) {
+        if (transition != null && transition.regionMatches(true, 0, "crossfade", 0, 9)) {
+            String[] args = transition.split(",");
+            int duration = args.length > 1 ? parseIntOrDefault(args[1], CROSSFADE_DEFAULT_MS) : CROSSFADE_DEFAULT_MS;
+            playCrossfade(newBgFile, duration);
+            return;
+        }
+        if (transition != null && transition.regionMatches(true, 0, "mask:", 0, 5)) {
+            String[] args = transition.substring(5).split(",");
+            int duration = args.length > 1 ? parseIntOrDefault(args[1], MASK_WIPE_DEFAULT_MS) : MASK_WIPE_DEFAULT_MS;
+            if (playMaskTransition(newBgFile, args[0].trim(), duration)) return;
+        }
+        playTransition(newBgFile);
+    }
+
+    /**
+     * Crossfades to a new background. The target is decoded on the loader thread when
+     * it isn't cached yet, and the fade starts as soon as it is ready.
+     */
+    private void playCrossfade(String newBgFile, int durationMs) {
+        if (isTransitionRunning()) return;
+
+        int width = backgroundPixelWidth();
+        int height = backgroundPixelHeight();
+        String cacheKey = Assets.getInstance().cacheKey(newBgFile) + "_" + width + "x" + height;
+        Image cached = scaledImageCache.get(cacheKey);
+        if (cached != null) {
+            startCrossfade(newBgFile, cached, durationMs);
+            return;
+        }
+
+        pendingBackground = newBgFile;
+        imageLoader.execute(() -> {
+            Image decoded = decodeScaledImage(newBgFile, width, height);
+            SwingUtilities.invokeLater(() -> {
+                pendingBackground = null;
+                if (decoded == null) {
+                    System.err.println("Failed to load background: " + newBgFile);
+                    return;
+                }
+                scaledImageCache.put(cacheKey, decoded);
+                startCrossfade(newBgFile, decoded, durationMs);
+            });
+        });
+    }
+
+    private void startCrossfade(String newBgFile, Image target, int durationMs) {
+        characterLabel.clearSprite();
+        if (transitionLayer.startCrossfade(currentBackground, target, durationMs,
+                                           () -> changeBackgroundImage(newBgFile))) {
+            currentState.set(IDX_BG, newBgFile);
+        } else {
+            changeBackgroundImage(newBgFile);
+        }
+    }
+
+    private boolean playMaskTransition(String newBgFile, String maskFile, int durationMs) {
+        if (isTransitionRunning()) return true;
+
+        Image target = loadBackground(newBgFile);
+        if (target == null) {
+            System.err.println("Failed to load background: " + newBgFile);
+            return false;
+        }
+
+        characterLabel.clearSprite();
+        boolean started = transitionLayer.startMaskWipe(currentBackground, target, maskFile, durationMs,
+                                                         () -> changeBackgroundImage(newBgFile));
+        if (started) {
+            currentState.set(IDX_BG, newBgFile);
+        }
+        return started;
+    }
+
     public void playTransition(String newBgFile) {
-        if (transitionTimer != null && transitionTimer.isRunning()) return;
+        if (isTransitionRunning()) return;
         
         isFadingOut = true;
         curtainAlpha = 0;
@@ -818,7 +1116,7 @@ public class YZCiallo extends JFrame {
                     curtainAlpha = 255;
                     isFadingOut = false;
                     changeBackgroundImage(newBgFile);
-                    characterLabel.setIcon(null);
+                    characterLabel.clearSprite();
                 }
             } else {
                 curtainAlpha -= TRANSITION_SPEED;
@@ -833,35 +1131,116 @@ public class YZCiallo extends JFrame {
     }
 
     private void changeBackgroundImage(String filename) {
-        Image scaled = loadAndScaleImage(filename, screenWidth, screenHeight);
+        Image scaled = loadBackground(filename);
         if (scaled != null) {
-            backgroundLabel.setIcon(new ImageIcon(scaled));
-            backgroundLabel.repaint();
+            TweenEngine.getInstance().finish(backgroundLabel);
+            backgroundLabel.setScale(1f);
+            backgroundLabel.setSprite(CharacterSprites.Sprite.of(scaled, renderScale));
+            currentBackground = scaled;
             currentState.set(IDX_BG, filename);
         } else {
             System.err.println("Failed to load background: " + filename);
         }
     }
 
+    /**
+     * Loads a background at the pixel size of the current scale bucket.
+     */
+    private Image loadBackground(String filename) {
+        return loadAndScaleImage(filename, backgroundPixelWidth(), backgroundPixelHeight());
+    }
+
+    private int backgroundPixelWidth() {
+        return Math.max(1, Math.round(screenWidth * renderScale));
+    }
+
+    private int backgroundPixelHeight() {
+        return Math.max(1, Math.round(screenHeight * renderScale));
+    }
+
+    /**
+     * Called once a window resize has settled into a new scale bucket. The background
+     * and visible sprites are rescaled on the loader thread and swapped in together;
+     * until then the current images are resampled while drawing.
+     */
+    private void onRenderScaleChanged(float bucket) {
+        String bgFile = currentState.get(IDX_BG);
+        int width = Math.max(1, Math.round(screenWidth * bucket));
+        int height = Math.max(1, Math.round(screenHeight * bucket));
+        String cacheKey = Assets.getInstance().cacheKey(bgFile) + "_" + width + "x" + height;
+
+        ArrayList<SpriteLabel> shown = new ArrayList<>();
+        for (SpriteLabel label : new SpriteLabel[]{characterLabel, characterLabelLeft, characterLabelRight}) {
+            if (label != null && label.getSprite() != null && label.getSprite().name != null) {
+                shown.add(label);
+            }
+        }
+        ArrayList<CharacterSprites.Sprite> current = new ArrayList<>();
+        for (SpriteLabel label : shown) {
+            current.add(label.getSprite());
+        }
+
+        imageLoader.execute(() -> {
+            Image background = scaledImageCache.get(cacheKey);
+            if (background == null && bgFile != null) {
+                background = decodeScaledImage(bgFile, width, height);
+                if (background != null) scaledImageCache.put(cacheKey, background);
+            }
+            for (CharacterSprites.Sprite sprite : current) {
+                characterSprites.get(sprite.name, sprite.mood, bucket);
+            }
+
+            Image rescaled = background;
+            SwingUtilities.invokeLater(() -> {
+                if (viewport.getRenderScale() != bucket) return;   // Superseded by another resize
+                renderScale = bucket;
+                characterSprites.setScale(bucket);
+                if (dialogueBox != null) dialogueBox.setRenderScale(bucket);
+                if (rescaled != null && bgFile.equals(currentState.get(IDX_BG)) && !isTransitionRunning()) {
+                    backgroundLabel.setSprite(CharacterSprites.Sprite.of(rescaled, bucket));
+                    currentBackground = rescaled;
+                }
+                for (SpriteLabel label : shown) {
+                    CharacterSprites.Sprite sprite = label.getSprite();
+                    if (sprite != null && sprite.name != null) {
+                        label.setSprite(characterSprites.get(sprite.name, sprite.mood));
+                    }
+                }
+            });
+        });
+    }
+
     /**
      * Loads and scales an image with caching.
      */
     private Image loadAndScaleImage(String filename, int width, int height) {
-        String cacheKey = filename + "_" + width + "x" + height;
+        String cacheKey = Assets.getInstance().cacheKey(filename) + "_" + width + "x" + height;
         if (scaledImageCache.containsKey(cacheKey)) {
             return scaledImageCache.get(cacheKey);
         }
 
-        ImageIcon icon = new ImageIcon(filename);
-        if (icon.getImageLoadStatus() != MediaTracker.COMPLETE) {
+        Image scaled = decodeScaledImage(filename, width, height);
+        if (scaled == null) {
             return null;
         }
-
-        Image scaled = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
         scaledImageCache.put(cacheKey, scaled);
         return scaled;
     }
 
+    /**
+     * Decodes and scales an opaque image without touching the cache; safe off the EDT.
+     */
+    private static Image decodeScaledImage(String filename, int width, int height) {
+        try {
+            // Decodes the smallest mip level that still covers the target size
+            BufferedImage source = Mipmaps.read(filename, width, height);
+            return source != null ? ImageUtils.scale(source, width, height, BufferedImage.TYPE_INT_RGB) : null;
+        } catch (IOException e) {
+            System.err.println("[Image] Error reading " + filename + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     private void setupChoices(String optData) {
        choicePanel.showChoices(optData, (targetLabel) -> {
         
@@ -879,79 +1258,73 @@ public class YZCiallo extends JFrame {
     }
 
     public String getSavePreview(int slot) {
-        ArrayList<String> allSaves = loadSavedGames();
-        int index = slot - 1;
-
-        if (index >= allSaves.size() || EMPTY_SLOT.equals(allSaves.get(index))) {
+        String text = saveStore.getPreview(slot);
+        if (text == null) {
             return "---- Empty ----";
         }
-
-        String[] parts = allSaves.get(index).split(SAVE_SEPARATOR, -1);
-        if (parts.length > IDX_TEXT) {
-            String text = parts[IDX_TEXT];
-            return text.length() > PREVIEW_MAX_LENGTH 
-                ? text.substring(0, PREVIEW_MAX_LENGTH) + "..." 
-                : text;
-        }
-
-        return "Unknown data";
+        return text.length() > PREVIEW_MAX_LENGTH 
+            ? text.substring(0, PREVIEW_MAX_LENGTH) + "..." 
+            : text;
     }
 
     /**
-     * Loads saved games from file with improved error handling.
+     * Moves the slots of an old line-per-slot save.dat into the slot store, once.
+     * The old file is kept as save.dat.bak.
      */
-    public ArrayList<String> loadSavedGames() {
-        ArrayList<String> lines = new ArrayList<>();
-        File file = new File(SAVE_FILE);
-
-        if (!file.exists()) {
-            System.out.println("[System] No save file found.");
-            return lines;
-        }
-
+    private void migrateLegacySaves() {
+        File legacy = new File(LEGACY_SAVE_FILE);
+        if (saveStore.exists() || !legacy.isFile()) return;
+
+        // Built beside save.slots and moved in only when complete, so a failed
+        // migration leaves save.dat in place and is retried on the next start
+        File temp = new File(SAVE_FILE + ".tmp");
+        int migrated = 0;
         try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                new InputStreamReader(new FileInputStream(legacy), StandardCharsets.UTF_8))) {
+            Files.deleteIfExists(temp.toPath());
+            SaveStore store = new SaveStore(temp);
             String line;
+            int slot = 0;
             while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    lines.add(line);
+                if (line.trim().isEmpty()) continue;
+                slot++;
+                if (EMPTY_SLOT.equals(line)) continue;
+                if (slot > SaveStore.SLOT_COUNT) {
+                    System.err.println("[Save] Slot " + slot + " of " + LEGACY_SAVE_FILE + " not migrated, only "
+                        + SaveStore.SLOT_COUNT + " slots; it stays in " + LEGACY_SAVE_FILE + ".bak");
+                    continue;
                 }
+                String[] parts = line.split(SAVE_SEPARATOR, -1);
+                store.write(slot, line, parts.length > IDX_TEXT ? parts[IDX_TEXT] : "");
+                migrated++;
+            }
+            if (migrated > 0) {
+                Files.move(temp.toPath(), new File(SAVE_FILE).toPath(), StandardCopyOption.ATOMIC_MOVE);
             }
         } catch (IOException e) {
-            System.err.println("[System] Error reading save file");
-            e.printStackTrace();
+            System.err.println("[Save] Error migrating " + LEGACY_SAVE_FILE + ", will retry next start: " + e.getMessage());
+            temp.delete();
+            return;
         }
-
-        System.out.println("[System] Loaded " + lines.size() + " save(s).");
-        return lines;
+        if (!legacy.renameTo(new File(LEGACY_SAVE_FILE + ".bak"))) {
+            System.err.println("[Save] Could not rename " + LEGACY_SAVE_FILE);
+        }
+        System.out.println("[Save] Migrated " + migrated + " save(s) from " + LEGACY_SAVE_FILE);
     }
 
+    /**
+     * Writes only this slot's record and index entry; the other slots aren't touched.
+     */
     public void saveGame(int slot) {
-        int index = slot - 1;
         System.out.println("[Save] Saving to slot " + slot + "...");
 
         try {
             String newSaveLine = currentState.stream()
                 .map(data -> data == null ? "null" : data)
                 .collect(Collectors.joining(SAVE_SEPARATOR));
+            String text = currentState.get(IDX_TEXT);
 
-            ArrayList<String> allSaves = loadSavedGames();
-
-            // Pad with empty slots if needed
-            while (allSaves.size() <= index) {
-                allSaves.add(EMPTY_SLOT);
-            }
-
-            allSaves.set(index, newSaveLine);
-
-            // Write all saves with try-with-resources
-            try (BufferedWriter writer = new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(SAVE_FILE, false), StandardCharsets.UTF_8))) {
-                for (String line : allSaves) {
-                    writer.write(line);
-                    writer.newLine();
-                }
-            }
+            saveStore.write(slot, newSaveLine, text != null ? text : "");
             System.out.println("[Save] Save successful!");
 
         } catch (IOException e) {
@@ -961,23 +1334,15 @@ public class YZCiallo extends JFrame {
     }
 
     public void loadGame(int slot) {
-        int index = slot - 1;
         System.out.println("\n[Load] Loading slot " + slot + "...");
 
-        ArrayList<String> allSaves = loadSavedGames();
-
-        if (index >= allSaves.size()) {
-            System.err.println("[Error] Slot " + slot + " is empty.");
-            return;
-        }
-
-        String saveLine = allSaves.get(index);
-        if (EMPTY_SLOT.equals(saveLine)) {
-            System.out.println("[Load] Slot is empty.");
-            return;
-        }
-
         try {
+            String saveLine = saveStore.read(slot);
+            if (saveLine == null) {
+                System.out.println("[Load] Slot is empty.");
+                return;
+            }
+
             String[] parts = saveLine.split(SAVE_SEPARATOR, -1);
             currentState.clear();
             for (String part : parts) {
@@ -998,7 +1363,7 @@ public class YZCiallo extends JFrame {
             String charName = currentState.get(IDX_CHAR);
             String charMood = currentState.get(IDX_MOOD);
             if (isNullOrEmpty(charName)) {
-                characterLabel.setIcon(null);
+                characterLabel.clearSprite();
             } else {
                 setCharacterEmotion(charName, charMood);
             }
@@ -1008,6 +1373,10 @@ public class YZCiallo extends JFrame {
             dialogueBox.setVisible(true);
             isGameOver = false;
 
+            // Restore voice: the replayed line plays its own, or the one a VOICE command gave it
+            resetVoice();
+            nextLineVoice = voiceCommandBefore(storyIndex);
+
             advanceStory();
             System.out.println("[Load] Load complete!");
 
@@ -1020,6 +1389,7 @@ public class YZCiallo extends JFrame {
     public void setAutoMode(boolean enabled) {
         isAutoMode = enabled;
         if (enabled) {
+            autoTimer.setInitialDelay(AUTO_BASE_DELAY_MS);
             autoTimer.start();
             if (autoModeIndicator != null) {
                 autoModeIndicator.setVisible(true);